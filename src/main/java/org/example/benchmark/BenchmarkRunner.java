@@ -1,21 +1,45 @@
 package org.example.benchmark;
 
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
-import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Locale;
 
+/**
+ * Usage: {@code BenchmarkRunner [--format=text|csv|scsv|json|latex] [--output=<file>] [pattern...]}. Patterns
+ * are JMH include regexes; without any, every benchmark of the suite runs. GC allocation is always profiled.
+ */
 public class BenchmarkRunner {
     public static void main(String[] args) throws Exception {
-        Options opt = new OptionsBuilder()
-                .include(FileProcessingBenchmark.class.getSimpleName())
+        ChainedOptionsBuilder opt = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
                 .forks(2)
                 .warmupIterations(10)
-                .measurementIterations(15)
-                .timeUnit(TimeUnit.MICROSECONDS)
-                .build();
+                .measurementIterations(15);
 
-        new Runner(opt).run();
+        boolean included = false;
+        for (String arg : args) {
+            if (arg.startsWith("--format=")) {
+                opt.resultFormat(ResultFormatType.valueOf(arg.substring("--format=".length()).toUpperCase(Locale.ROOT)));
+            } else if (arg.startsWith("--output=")) {
+                opt.result(arg.substring("--output=".length()));
+            } else {
+                opt.include(arg);
+                included = true;
+            }
+        }
+        if (!included) {
+            opt.include(FileProcessingBenchmark.class.getSimpleName())
+                    .include(PersistenceBenchmark.class.getSimpleName())
+                    .include(ChunkerBenchmark.class.getSimpleName())
+                    .include(CompressionBenchmark.class.getSimpleName())
+                    .include(IngestBenchmark.class.getSimpleName())
+                    .include(ResemblanceBenchmark.class.getSimpleName());
+        }
+
+        new Runner(opt.build()).run();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import io.github.zabuzard.fastcdc4j.external.chunking.Chunk;
+import io.github.zabuzard.fastcdc4j.external.chunking.Chunker;
+import io.github.zabuzard.fastcdc4j.external.chunking.ChunkerBuilder;
+import org.example.chunking.BufferChunker;
+import org.example.chunking.FastCDCChunker;
+import org.example.chunking.RabinChunker;
+import org.example.config.ChunkingProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkerBenchmark {
+    private static final int DATA_SIZE = 64 * 1024 * 1024;
+    private static final int EDITS = 256;
+
+    // "vector" needs a build with -Pvector and -jvmArgsAppend --add-modules=jdk.incubator.vector
+    @Param({"native", "rabin", "fastcdc4j"})
+    private String implementation;
+
+    @Param({"random", "text"})
+    private String corpus;
+
+    private BufferChunker nativeChunker;
+    private Chunker libraryChunker;
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ChunkingProperties properties = new ChunkingProperties();
+        properties.setVectorized(implementation.equals("vector"));
+        nativeChunker = implementation.equals("rabin") ? new RabinChunker() : new FastCDCChunker(properties);
+        libraryChunker = new ChunkerBuilder().build();
+        Random random = new Random(42);
+        data = Corpus.generate(corpus, DATA_SIZE, 42);
+
+        byte[] edited = edit(data, random);
+        List<ByteBuffer> original = chunk(data);
+        List<ByteBuffer> revised = chunk(edited);
+        Set<ByteBuffer> known = new HashSet<>(original);
+        long duplicateBytes = revised.stream().filter(known::contains).mapToLong(ByteBuffer::remaining).sum();
+        Corpus.printDistribution(implementation + "/" + corpus, original.stream().map(ByteBuffer::remaining).toList());
+        System.out.printf("%.2f %% de la version modifiée dédupliquée%n", 100.0 * duplicateBytes / edited.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public int chunkBytes() throws IOException {
+        if (!implementation.equals("fastcdc4j")) {
+            int[] count = {0};
+            nativeChunker.chunkBuffer(ByteBuffer.wrap(data), 0, true, view -> count[0]++);
+            return count[0];
+        }
+        int count = 0;
+        for (Chunk ignored : libraryChunker.chunk(data)) {
+            count++;
+        }
+        return count;
+    }
+
+    private List<ByteBuffer> chunk(byte[] input) throws IOException {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        if (!implementation.equals("fastcdc4j")) {
+            nativeChunker.chunkBuffer(ByteBuffer.wrap(input), 0, true, view -> chunks.add(view.getData()));
+        } else {
+            for (Chunk c : libraryChunker.chunk(input)) {
+                chunks.add(ByteBuffer.wrap(c.getData()));
+            }
+        }
+        return chunks;
+    }
+
+    private static byte[] edit(byte[] source, Random random) {
+        byte[] edited = new byte[source.length + EDITS * 8];
+        int from = 0;
+        int to = 0;
+        for (int i = 1; i <= EDITS; i++) {
+            int next = (int) ((long) source.length * i / (EDITS + 1));
+            System.arraycopy(source, from, edited, to, next - from);
+            to += next - from;
+            from = next;
+            for (int j = 0; j < 8; j++) {
+                edited[to++] = (byte) random.nextInt();
+            }
+        }
+        System.arraycopy(source, from, edited, to, source.length - from);
+        return edited;
+    }
+}
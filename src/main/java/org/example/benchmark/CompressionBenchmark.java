@@ -0,0 +1,85 @@
+package org.example.benchmark;
+
+import com.github.luben.zstd.Zstd;
+import org.example.compression.CompressionHint;
+import org.example.compression.CompressionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-shot static Zstd calls against the pooled contexts and reusable buffers of {@link CompressionService}.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionBenchmark {
+    private static final int LEVEL = 3;
+
+    @Param({"1024", "8192", "65536"})
+    private int chunkSize;
+
+    private CompressionService compressor;
+    private byte[] chunk;
+    private byte[] frame;
+    private byte[] stored;
+    private ByteBuffer directChunk;
+    private ByteBuffer directStored;
+    private ByteBuffer target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        compressor = new CompressionService();
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(42);
+        while (text.length() < chunkSize) {
+            text.append("{\"ts\":").append(1_700_000_000 + random.nextInt(1_000_000))
+                    .append(",\"level\":\"").append(random.nextBoolean() ? "INFO" : "WARN")
+                    .append("\",\"bytes\":").append(random.nextInt(1 << 20)).append("}\n");
+        }
+        chunk = text.substring(0, chunkSize).getBytes(StandardCharsets.US_ASCII);
+        frame = Zstd.compress(chunk, LEVEL);
+        stored = compressor.compress(chunk);
+        directChunk = ByteBuffer.allocateDirect(chunkSize).put(chunk).flip();
+        directStored = ByteBuffer.allocateDirect(stored.length).put(stored).flip();
+        target = ByteBuffer.allocateDirect(compressor.maxStoredLength(chunkSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compressor.close();
+    }
+
+    @Benchmark
+    public byte[] oneShotCompress() {
+        return Zstd.compress(chunk, LEVEL);
+    }
+
+    @Benchmark
+    public byte[] pooledCompressToArray() throws IOException {
+        return compressor.compress(chunk);
+    }
+
+    @Benchmark
+    public int pooledCompressToBuffer() throws IOException {
+        return compressor.compress(directChunk, target.clear(), CompressionHint.DEFAULT);
+    }
+
+    @Benchmark
+    public byte[] oneShotDecompress() {
+        return Zstd.decompress(frame, chunkSize);
+    }
+
+    @Benchmark
+    public int pooledDecompressToBuffer() {
+        return compressor.decompress(directStored, target.clear());
+    }
+}
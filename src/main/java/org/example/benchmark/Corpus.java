@@ -0,0 +1,106 @@
+package org.example.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded synthetic corpora, so every host benchmarks the same bytes.
+ */
+final class Corpus {
+    private static final int BLOCK = 4096;
+    private static final String[] WORDS = ("chunk store index bloom filter hash ingest restore manifest offset length "
+            + "codec zstd dictionary window segment cursor batch commit release claim verify fingerprint pipeline "
+            + "worker reader writer buffer channel mapped file version edit shift page cache").split(" ");
+
+    private Corpus() {
+    }
+
+    /**
+     * {@code random} is incompressible, {@code text} is word salad that compresses about 4:1, {@code mixed}
+     * alternates 64 KiB blocks of both.
+     */
+    static byte[] generate(String kind, int size, long seed) {
+        Random random = new Random(seed);
+        return switch (kind) {
+            case "random" -> random(size, random);
+            case "text" -> text(size, random);
+            case "mixed" -> {
+                byte[] data = new byte[size];
+                for (int offset = 0; offset < size; offset += 64 * 1024) {
+                    byte[] block = (offset / (64 * 1024)) % 2 == 0 ? text(64 * 1024, random) : random(64 * 1024, random);
+                    System.arraycopy(block, 0, data, offset, Math.min(block.length, size - offset));
+                }
+                yield data;
+            }
+            default -> throw new IllegalArgumentException("Corpus inconnu : " + kind);
+        };
+    }
+
+    /**
+     * Derives a new version of {@code base}: each 4 KiB block gets a 16-byte overwrite with probability
+     * {@code editRate}, and an insertion or deletion of 1 to 64 bytes with probability {@code shiftRate}.
+     */
+    static byte[] version(byte[] base, double editRate, double shiftRate, Random random) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(base.length + BLOCK);
+        byte[] noise = new byte[64];
+        for (int offset = 0; offset < base.length; offset += BLOCK) {
+            byte[] block = Arrays.copyOfRange(base, offset, Math.min(offset + BLOCK, base.length));
+            if (random.nextDouble() < editRate) {
+                random.nextBytes(noise);
+                int at = random.nextInt(Math.max(1, block.length - 16));
+                System.arraycopy(noise, 0, block, at, Math.min(16, block.length - at));
+            }
+            int cut = block.length;
+            if (random.nextDouble() < shiftRate) {
+                int shift = 1 + random.nextInt(64);
+                if (random.nextBoolean()) {
+                    int at = random.nextInt(block.length);
+                    out.write(block, 0, at);
+                    random.nextBytes(noise);
+                    out.write(noise, 0, shift);
+                    out.write(block, at, block.length - at);
+                    continue;
+                }
+                cut = Math.max(0, block.length - shift);
+            }
+            out.write(block, 0, cut);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Prints count, mean and percentiles of the chunk sizes, the way the other benchmarks report in setup.
+     */
+    static void printDistribution(String label, List<Integer> sizes) {
+        int[] sorted = sizes.stream().mapToInt(Integer::intValue).sorted().toArray();
+        long total = Arrays.stream(sorted).asLongStream().sum();
+        System.out.printf("%n%s : %d chunks, moyenne %d, p10 %d, p50 %d, p90 %d, max %d octets%n", label, sorted.length,
+                total / Math.max(1, sorted.length), percentile(sorted, 10), percentile(sorted, 50), percentile(sorted, 90),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+    }
+
+    private static int percentile(int[] sorted, int percent) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static byte[] random(int size, Random random) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static byte[] text(int size, Random random) {
+        StringBuilder text = new StringBuilder(size + 32);
+        while (text.length() < size) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextInt(12) == 0 ? ".\n" : " ");
+            if (random.nextInt(20) == 0) {
+                text.append(random.nextInt(100_000));
+            }
+        }
+        return Arrays.copyOf(text.toString().getBytes(StandardCharsets.US_ASCII), size);
+    }
+}
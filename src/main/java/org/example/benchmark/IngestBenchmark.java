@@ -0,0 +1,168 @@
+package org.example.benchmark;
+
+import org.example.Application;
+import org.example.reconstruction.FileReconstructor;
+import org.example.service.FileProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end ingest and restore through the real Spring context against a throwaway SQLite database, with
+ * the payloads inline or in pack segments; ops/s are bytes/s. Each {@code ingestVersion} invocation stores a
+ * fresh edited version of the base file, so the measured work includes the duplicate lookups a real re-ingest
+ * would pay.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestBenchmark {
+    private static final int CORPUS_SIZE = 16 * 1024 * 1024;
+    private static final double EDIT_RATE = 0.02;
+    private static final double SHIFT_RATE = 0.005;
+    private static final String BASE_FILE = "restore.bin";
+
+    @Param({"text", "random"})
+    private String corpus;
+
+    @Param({"xxh64", "xxh64x2", "sha256"})
+    private String fingerprint;
+
+    @Param({"zstd", "lz4"})
+    private String codec;
+
+    @Param({"sqlite", "pack"})
+    private String storage;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private FileProcessor processor;
+    private FileReconstructor reconstructor;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] base;
+    private Random random;
+    private long versions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("ingest-bench");
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:sqlite:" + workDir.resolve("bench.db") + "?journal_mode=WAL&synchronous=NORMAL",
+                "--dedup.index-path=" + workDir.resolve("dedup.idx"),
+                "--dedup.bloom-path=" + workDir.resolve("dedup.bloom"),
+                "--dedup.expected-chunks=1000000",
+                "--dedup.fingerprint=" + fingerprint,
+                "--storage.backend=" + storage,
+                "--storage.pack-directory=" + workDir.resolve("packs")));
+        if (codec.equals("lz4")) {
+            arguments.add("--compression.hot-paths=" + workDir + "/**");
+        }
+        // command-line arguments, unlike default properties, take precedence over application.properties
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+        processor = context.getBean(FileProcessor.class);
+        reconstructor = context.getBean(FileReconstructor.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        base = Corpus.generate(corpus, CORPUS_SIZE, 42);
+        random = new Random(7);
+        Path basePath = workDir.resolve(BASE_FILE);
+        Files.write(basePath, base);
+        processor.processFile(basePath.toString());
+        Corpus.printDistribution(corpus + "/" + fingerprint + "/" + codec + "/" + storage, jdbcTemplate.queryForList(
+                "SELECT length FROM file_manifest WHERE file_path = ?", Integer.class, basePath.toString()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        Map<String, Object> manifest = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(length), 0) AS logical FROM file_manifest");
+        Map<String, Object> store = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(original_size), 0) AS unique_bytes, "
+                + "COALESCE(SUM(compressed_size), 0) AS stored FROM chunk_store");
+        long logical = ((Number) manifest.get("logical")).longValue();
+        long unique = ((Number) store.get("unique_bytes")).longValue();
+        long stored = ((Number) store.get("stored")).longValue();
+        System.out.printf("%n%d versions : dédup %.2fx, compression %.2fx, %d octets stockés pour %d logiques%n",
+                versions, (double) logical / Math.max(1, unique), (double) unique / Math.max(1, stored), stored, logical);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Version {
+        private Path path;
+
+        @Setup(Level.Invocation)
+        public void write(IngestBenchmark benchmark) throws IOException {
+            path = benchmark.workDir.resolve("version-" + benchmark.versions++ + ".bin");
+            Files.write(path, Corpus.version(benchmark.base, EDIT_RATE, SHIFT_RATE, benchmark.random));
+        }
+
+        @TearDown(Level.Invocation)
+        public void delete() throws IOException {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public int ingestVersion(Version version) throws Exception {
+        return processor.processFile(version.path.toString());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public long restore() throws IOException {
+        CountingChannel channel = new CountingChannel();
+        reconstructor.restore(workDir.resolve(BASE_FILE).toString(), channel);
+        return channel.written.get();
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private final AtomicLong written = new AtomicLong();
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            source.position(source.limit());
+            written.addAndGet(length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
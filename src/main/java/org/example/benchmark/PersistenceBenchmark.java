@@ -0,0 +1,110 @@
+package org.example.benchmark;
+
+import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.StoredChunk;
+import org.example.repository.ChunkStoreRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final int ROWS_PER_INVOCATION = 1000;
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS chunks (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "hash TEXT NOT NULL UNIQUE, file_path TEXT NOT NULL, order_index INTEGER NOT NULL, data BLOB NOT NULL)";
+
+    private Path workDir;
+    private SingleConnectionDataSource rowByRowDataSource;
+    private SingleConnectionDataSource batchedDataSource;
+    private ChunkStoreRepository chunkStore;
+    private byte[] payload;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        workDir = Files.createTempDirectory("persistence-bench");
+        payload = new byte[4096];
+        new Random(42).nextBytes(payload);
+
+        rowByRowDataSource = new SingleConnectionDataSource("jdbc:sqlite:" + workDir.resolve("row.db"), true);
+        batchedDataSource = new SingleConnectionDataSource(
+                "jdbc:sqlite:" + workDir.resolve("batch.db") + "?journal_mode=WAL&synchronous=NORMAL", true);
+        try (Connection connection = rowByRowDataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(batchedDataSource);
+        chunkStore = new ChunkStoreRepository(new JdbcTemplate(batchedDataSource), new DataSourceTransactionManager(batchedDataSource));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        rowByRowDataSource.destroy();
+        batchedDataSource.destroy();
+        try (var files = Files.list(workDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public long rowByRowInsert() throws SQLException {
+        long lastId = 0;
+        try (Connection connection = rowByRowDataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO chunks (hash, file_path, order_index, data) VALUES (?, ?, ?, ?)");
+             PreparedStatement identity = connection.prepareStatement("SELECT last_insert_rowid()")) {
+            for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+                insert.setString(1, Long.toString(sequence++));
+                insert.setString(2, "bench.bin");
+                insert.setInt(3, i);
+                insert.setBytes(4, payload);
+                insert.executeUpdate();
+                try (ResultSet resultSet = identity.executeQuery()) {
+                    resultSet.next();
+                    lastId = resultSet.getLong(1);
+                }
+            }
+        }
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public int batchedInsert() {
+        List<StoredChunk> blobs = new ArrayList<>(ROWS_PER_INVOCATION);
+        List<Chunk> references = new ArrayList<>(ROWS_PER_INVOCATION);
+        String filePath = "bench-" + sequence + ".bin";
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            ChunkFingerprint hash = ChunkFingerprint.of(sequence++);
+            blobs.add(new StoredChunk(hash, payload, payload.length));
+            references.add(new Chunk(hash, filePath, i, (long) i * payload.length, payload.length));
+        }
+        chunkStore.writeBatch(blobs, references);
+        return references.size();
+    }
+}
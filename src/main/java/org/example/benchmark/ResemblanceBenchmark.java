@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import org.example.compression.CompressionService;
+import org.example.similarity.SuperFeatures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the resemblance stage per new chunk: the super-feature sketch, then delta encoding and decoding
+ * against an edited base, next to plain compression of the same chunk. The database lookup is measured end to
+ * end by {@link IngestBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResemblanceBenchmark {
+    private static final byte[] BASE_HASH = new byte[16];
+
+    @Param({"text", "random"})
+    private String corpus;
+
+    @Param({"8192", "65536"})
+    private int chunkSize;
+
+    private CompressionService compressor;
+    private byte[] base;
+    private byte[] chunk;
+    private byte[] delta;
+    private ByteBuffer target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        compressor = new CompressionService();
+        base = Corpus.generate(corpus, chunkSize, 42);
+        chunk = Corpus.version(base, 0.5, 0, new Random(7));
+        delta = compressor.compressDelta(ByteBuffer.wrap(chunk), base, BASE_HASH);
+        target = ByteBuffer.allocate(chunkSize);
+        System.out.printf("%n%s/%d : delta %d octets, zstd %d octets%n", corpus, chunkSize, delta.length,
+                compressor.compress(chunk).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compressor.close();
+    }
+
+    @Benchmark
+    public long[] sketch() {
+        return SuperFeatures.compute(ByteBuffer.wrap(chunk));
+    }
+
+    @Benchmark
+    public byte[] compressDelta() throws IOException {
+        return compressor.compressDelta(ByteBuffer.wrap(chunk), base, BASE_HASH);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return compressor.compress(chunk);
+    }
+
+    @Benchmark
+    public int decompressDelta() {
+        return compressor.decompressDelta(ByteBuffer.wrap(delta), base, target.clear());
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.chunking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface BufferChunker {
+    /**
+     * Emits views over the chunks found between the buffer's position and limit and returns how many
+     * bytes they cover. Unless {@code endOfInput} is set, the trailing chunk is held back because the
+     * buffer end is not a real boundary; the caller resumes from the returned offset.
+     */
+    int chunkBuffer(ByteBuffer buffer, long baseOffset, boolean endOfInput, ChunkViewConsumer consumer) throws IOException;
+}
@@ -0,0 +1,8 @@
+package org.example.chunking;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ChunkConsumer {
+    void accept(byte[] chunk) throws IOException;
+}
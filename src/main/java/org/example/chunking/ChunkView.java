@@ -0,0 +1,31 @@
+package org.example.chunking;
+
+import java.nio.ByteBuffer;
+
+public final class ChunkView {
+    private final long offset;
+    private final ByteBuffer data;
+
+    public ChunkView(long offset, ByteBuffer data) {
+        this.offset = offset;
+        this.data = data;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return data.remaining();
+    }
+
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    public byte[] toByteArray() {
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        return copy;
+    }
+}
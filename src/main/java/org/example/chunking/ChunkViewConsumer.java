@@ -0,0 +1,8 @@
+package org.example.chunking;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ChunkViewConsumer {
+    void accept(ChunkView chunk) throws IOException;
+}
@@ -1,8 +1,14 @@
 package org.example.chunking;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
-public interface ChunkerInterface {
+public interface ChunkerInterface extends BufferChunker {
     List<byte[]> chunkData(byte[] data) throws IOException;
+
+    /**
+     * Chunks {@code input} through a bounded buffer, never holding the whole stream; {@code size} is a hint.
+     */
+    void chunkStream(InputStream input, long size, ChunkConsumer consumer) throws IOException;
 }
@@ -0,0 +1,180 @@
+package org.example.chunking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Base for content-defined chunkers that only locate cut points. Subclasses scan a buffer range and
+ * report the next chunk length; copying, stream buffering and views are handled here once.
+ */
+abstract class CutPointChunker implements BufferChunker {
+
+    /**
+     * Returns the length of the chunk starting at {@code start}, or -1 when {@code end} is reached before
+     * a boundary or the maximum chunk size.
+     */
+    protected abstract int nextChunkLength(ByteBuffer buffer, int start, int end);
+
+    protected abstract int maxChunkSize();
+
+    public List<byte[]> chunkData(byte[] data) {
+        List<byte[]> chunks = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int start = 0;
+        while (start < data.length) {
+            int length = nextChunkLength(buffer, start, data.length);
+            if (length < 0) {
+                length = data.length - start;
+            }
+            chunks.add(Arrays.copyOfRange(data, start, start + length));
+            start += length;
+        }
+        return chunks;
+    }
+
+    public void chunkStream(InputStream input, ChunkConsumer consumer) throws IOException {
+        byte[] data = new byte[64 * maxChunkSize()];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int start = 0;
+        int end = 0;
+        boolean endOfInput = false;
+
+        while (!endOfInput || start < end) {
+            int length = nextChunkLength(buffer, start, end);
+            if (length < 0 && !endOfInput) {
+                System.arraycopy(data, start, data, 0, end - start);
+                end -= start;
+                start = 0;
+                int read = input.readNBytes(data, end, data.length - end);
+                endOfInput = end + read < data.length;
+                end += read;
+                continue;
+            }
+            if (length < 0) {
+                length = end - start;
+            }
+            consumer.accept(Arrays.copyOfRange(data, start, start + length));
+            start += length;
+        }
+    }
+
+    @Override
+    public int chunkBuffer(ByteBuffer buffer, long baseOffset, boolean endOfInput, ChunkViewConsumer consumer) throws IOException {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int chunkStart = start;
+
+        while (chunkStart < limit) {
+            int length = nextChunkLength(buffer, chunkStart, limit);
+            if (length < 0) {
+                if (!endOfInput) {
+                    break;
+                }
+                length = limit - chunkStart;
+            }
+            consumer.accept(new ChunkView(baseOffset + chunkStart - start, buffer.slice(chunkStart, length)));
+            chunkStart += length;
+        }
+        return chunkStart - start;
+    }
+
+    /**
+     * Same result as {@link #chunkBuffer}, but segments of {@code segmentSize} bytes are chunked
+     * independently on {@code pool}, each as if a chunk started at its first byte. Walking sequentially
+     * from the last confirmed cut, the first cut that also appears in the next segment's list realigns
+     * both sequences; the rest of that list is then taken as is. Views are emitted in order on the
+     * calling thread.
+     */
+    int chunkBufferParallel(ByteBuffer buffer, long baseOffset, boolean endOfInput, ChunkViewConsumer consumer,
+                            ForkJoinPool pool, int segmentSize) throws IOException {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int segments = (int) (((long) limit - start + segmentSize - 1) / segmentSize);
+        if (segments < 2) {
+            return chunkBuffer(buffer, baseOffset, endOfInput, consumer);
+        }
+
+        List<ForkJoinTask<int[]>> tasks = new ArrayList<>(segments);
+        for (int k = 0; k < segments; k++) {
+            int from = start + k * segmentSize;
+            int to = Math.min(limit, from + segmentSize);
+            tasks.add(pool.submit(() -> segmentCuts(buffer, from, to, limit)));
+        }
+
+        int cursor = start;
+        try {
+            for (int k = 0; k < segments; k++) {
+                int[] cuts = tasks.get(k).join();
+                int i = 0;
+                boolean synced = cursor == start + k * segmentSize;
+                while (!synced) {
+                    while (i < cuts.length && cuts[i] < cursor) {
+                        i++;
+                    }
+                    if (i == cuts.length) {
+                        break;
+                    }
+                    if (cuts[i] == cursor) {
+                        i++;
+                        synced = true;
+                        break;
+                    }
+                    int length = nextChunkLength(buffer, cursor, limit);
+                    if (length < 0) {
+                        break;
+                    }
+                    emit(buffer, baseOffset, start, cursor, length, consumer);
+                    cursor += length;
+                }
+                if (synced) {
+                    for (; i < cuts.length; i++) {
+                        emit(buffer, baseOffset, start, cursor, cuts[i] - cursor, consumer);
+                        cursor = cuts[i];
+                    }
+                }
+            }
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+
+        int length;
+        while ((length = nextChunkLength(buffer, cursor, limit)) >= 0) {
+            emit(buffer, baseOffset, start, cursor, length, consumer);
+            cursor += length;
+        }
+        if (endOfInput && cursor < limit) {
+            emit(buffer, baseOffset, start, cursor, limit - cursor, consumer);
+            cursor = limit;
+        }
+        return cursor - start;
+    }
+
+    private int[] segmentCuts(ByteBuffer buffer, int from, int to, int limit) {
+        int[] cuts = new int[1024];
+        int count = 0;
+        int cursor = from;
+        while (cursor < to) {
+            int length = nextChunkLength(buffer, cursor, limit);
+            if (length < 0) {
+                break;
+            }
+            cursor += length;
+            if (count == cuts.length) {
+                cuts = Arrays.copyOf(cuts, 2 * count);
+            }
+            cuts[count++] = cursor;
+        }
+        return Arrays.copyOf(cuts, count);
+    }
+
+    private static void emit(ByteBuffer buffer, long baseOffset, int start, int chunkStart, int length,
+                             ChunkViewConsumer consumer) throws IOException {
+        consumer.accept(new ChunkView(baseOffset + chunkStart - start, buffer.slice(chunkStart, length)));
+    }
+}
@@ -1,28 +1,144 @@
 package org.example.chunking;
 
-import io.github.zabuzard.fastcdc4j.external.chunking.Chunk;
-import io.github.zabuzard.fastcdc4j.external.chunking.Chunker;
-import io.github.zabuzard.fastcdc4j.external.chunking.ChunkerBuilder;
+import org.example.config.ChunkingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
 
+/**
+ * FastCDC with a gear rolling hash and normalized chunking: a stricter mask is used before the average
+ * size and a looser one after it, which narrows the chunk size distribution around the average. Each
+ * gear step shifts the hash left, so it only depends on the last 64 bytes; hashing starts 64 bytes
+ * before the minimum size instead of at the chunk start.
+ */
 @Component
-public class FastCDCChunker implements ChunkerInterface {
-    private final Chunker chunker;
+public class FastCDCChunker extends CutPointChunker implements ChunkerInterface {
+    private static final Logger logger = Logger.getLogger(FastCDCChunker.class.getName());
+    private static final int GEAR_WINDOW = Long.SIZE;
+    private static final int LARGE_REGION_BLOCK = 2048;
+    private static final GearScanner VECTOR_SCANNER = loadVectorScanner();
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long smallMask;
+    private final long largeMask;
+    private final long[] gear = new long[256];
+    // null for the scalar scan
+    private final GearScanner scanner;
+
+    @Autowired
+    public FastCDCChunker(ChunkingProperties properties) {
+        this.minSize = properties.getMinSize();
+        this.avgSize = properties.getAvgSize();
+        this.maxSize = properties.getMaxSize();
+        int level = properties.getNormalizationLevel();
+        if (minSize < GEAR_WINDOW || minSize >= avgSize || avgSize >= maxSize) {
+            throw new IllegalArgumentException("Tailles de chunk invalides : min=" + minSize + ", avg=" + avgSize
+                    + ", max=" + maxSize);
+        }
+        if (level < 0 || level > 3) {
+            throw new IllegalArgumentException("Niveau de normalisation invalide : " + level);
+        }
+
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.smallMask = topBits(bits + level);
+        this.largeMask = topBits(bits - level);
+        SplittableRandom random = new SplittableRandom(properties.getGearSeed());
+        for (int i = 0; i < gear.length; i++) {
+            gear[i] = random.nextLong();
+        }
+
+        this.scanner = properties.isVectorized() ? VECTOR_SCANNER : null;
+        if (scanner != null) {
+            logger.info("⚡ Recherche de frontières vectorisée : " + scanner.lanes() + " lanes");
+        } else if (properties.isVectorized()) {
+            logger.warning("⚠️ Recherche vectorisée indisponible (profil Maven vector et module jdk.incubator.vector "
+                    + "requis), recherche de frontières scalaire");
+        }
+    }
+
+    /**
+     * The Vector API scanner is only compiled by the {@code vector} Maven profile and needs
+     * {@code --add-modules jdk.incubator.vector} at run time.
+     */
+    private static GearScanner loadVectorScanner() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (GearScanner) Class.forName(FastCDCChunker.class.getPackageName() + ".VectorGearScanner")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
 
     public FastCDCChunker() {
-        this.chunker = new ChunkerBuilder().build();
+        this(new ChunkingProperties());
+    }
+
+    boolean isVectorized() {
+        return scanner != null;
     }
 
     @Override
-    public List<byte[]> chunkData(byte[] data) throws IOException {
-        List<byte[]> chunks = new ArrayList<>();
-        for (Chunk c : chunker.chunk(data)) {
-            chunks.add(c.getData());
+    public void chunkStream(InputStream input, long size, ChunkConsumer consumer) throws IOException {
+        chunkStream(input, consumer);
+    }
+
+    @Override
+    protected int maxChunkSize() {
+        return maxSize;
+    }
+
+    @Override
+    protected int nextChunkLength(ByteBuffer buffer, int start, int end) {
+        int scanEnd = Math.min(end, start + maxSize);
+        if (scanEnd - start <= minSize) {
+            return -1;
         }
-        return chunks;
+
+        int normalEnd = Math.min(scanEnd, start + avgSize);
+        if (scanner != null) {
+            int cut = scanner.findCut(buffer, gear, start + minSize, normalEnd, smallMask, avgSize);
+            if (cut < 0) {
+                cut = scanner.findCut(buffer, gear, normalEnd, scanEnd, largeMask, LARGE_REGION_BLOCK);
+            }
+            if (cut >= 0) {
+                return cut + 1 - start;
+            }
+            return scanEnd - start == maxSize ? maxSize : -1;
+        }
+
+        long hash = 0;
+        int i = start + minSize - GEAR_WINDOW;
+        for (; i < start + minSize; i++) {
+            hash = (hash << 1) + gear[buffer.get(i) & 0xFF];
+        }
+        for (; i < normalEnd; i++) {
+            hash = (hash << 1) + gear[buffer.get(i) & 0xFF];
+            if ((hash & smallMask) == 0) {
+                return i + 1 - start;
+            }
+        }
+        for (; i < scanEnd; i++) {
+            hash = (hash << 1) + gear[buffer.get(i) & 0xFF];
+            if ((hash & largeMask) == 0) {
+                return i + 1 - start;
+            }
+        }
+        return scanEnd - start == maxSize ? maxSize : -1;
+    }
+
+    private static long topBits(int count) {
+        return count <= 0 ? 0 : -1L << (Long.SIZE - count);
     }
 
     public List<byte[]> chunkTextData(String text) {
@@ -32,4 +148,4 @@ public class FastCDCChunker implements ChunkerInterface {
         }
         return chunks;
     }
-}
\ No newline at end of file
+}
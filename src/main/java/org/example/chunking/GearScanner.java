@@ -0,0 +1,16 @@
+package org.example.chunking;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cut point search replacing the scalar gear hash loop of {@link FastCDCChunker}.
+ */
+interface GearScanner {
+    /**
+     * Returns the first position in [{@code from}, {@code to}) whose gear hash has none of the
+     * {@code mask} bits set, or -1. {@code from} must be at least 64 bytes past the chunk start.
+     */
+    int findCut(ByteBuffer buffer, long[] gear, int from, int to, long mask, int blockSize);
+
+    int lanes();
+}
@@ -0,0 +1,59 @@
+package org.example.chunking;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.ChunkingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+@Component
+public class MappedFileChunker {
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final ForkJoinPool segmentPool;
+    private final int segmentSize;
+
+    @Autowired
+    public MappedFileChunker(ChunkingProperties properties) {
+        this.segmentPool = properties.getParallelism() > 1 ? new ForkJoinPool(properties.getParallelism()) : null;
+        this.segmentSize = properties.getParallelSegmentSize();
+    }
+
+    public MappedFileChunker() {
+        this(new ChunkingProperties());
+    }
+
+    public void chunkFile(Path path, BufferChunker chunker, ChunkViewConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+
+            while (position < size) {
+                long windowLength = Math.min(WINDOW_SIZE, size - position);
+                boolean lastWindow = position + windowLength == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+
+                int consumed = segmentPool != null && chunker instanceof CutPointChunker cutPointChunker
+                        ? cutPointChunker.chunkBufferParallel(window, position, lastWindow, consumer, segmentPool, segmentSize)
+                        : chunker.chunkBuffer(window, position, lastWindow, consumer);
+                if (consumed == 0 && !lastWindow) {
+                    throw new IOException("Aucune frontière de chunk trouvée à l'offset " + position + " : " + path);
+                }
+                position += consumed;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (segmentPool != null) {
+            segmentPool.shutdownNow();
+        }
+    }
+}
@@ -3,44 +3,59 @@ package org.example.chunking;
 import org.springframework.stereotype.Component;
 import org.example.util.RabinFingerprint;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 @Component
-public class RabinChunker {
+public class RabinChunker extends CutPointChunker {
     private static final int MIN_CHUNK_SIZE = 2048;
     private static final int AVG_CHUNK_SIZE = 8192;
     private static final int MAX_CHUNK_SIZE = 16384;
+    private static final long BOUNDARY_MASK = Integer.highestOneBit(AVG_CHUNK_SIZE) - 1;
 
-    public List<byte[]> chunkData(byte[] data) {
-        List<byte[]> chunks = new ArrayList<>();
-        ByteArrayOutputStream chunkBuffer = new ByteArrayOutputStream();
-        RabinFingerprint fingerprint = new RabinFingerprint();
-
-        for (byte b : data) {
-            chunkBuffer.write(b);
-            fingerprint.update(b);
-
-            if (chunkBuffer.size() >= MIN_CHUNK_SIZE && fingerprint.isBoundary()) {
-                chunks.add(chunkBuffer.toByteArray());
-                chunkBuffer.reset();
-                fingerprint.reset();
-            }
+    public List<byte[]> chunkData(String filePath) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists() || !file.isFile()) {
+            throw new IOException("Fichier introuvable : " + filePath);
         }
 
-        if (chunkBuffer.size() > 0) {
-            chunks.add(chunkBuffer.toByteArray());
+        List<byte[]> chunks = new ArrayList<>();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            chunkStream(fis, chunks::add);
         }
         return chunks;
     }
 
-    public List<byte[]> chunkData(String filePath) throws IOException {
-        File file = new File(filePath);
-        if (!file.exists() || !file.isFile()) {
-            throw new IOException("Fichier introuvable : " + filePath);
+    @Override
+    protected int maxChunkSize() {
+        return MAX_CHUNK_SIZE;
+    }
+
+    /**
+     * The first bytes up to the minimum size are skipped; only the window preceding the minimum cut
+     * point is hashed.
+     */
+    @Override
+    protected int nextChunkLength(ByteBuffer buffer, int start, int end) {
+        int scanEnd = Math.min(end, start + MAX_CHUNK_SIZE);
+        if (scanEnd - start <= MIN_CHUNK_SIZE) {
+            return -1;
         }
 
-        try (FileInputStream fis = new FileInputStream(file)) {
-            return chunkData(fis.readAllBytes());
+        int windowStart = start + MIN_CHUNK_SIZE - RabinFingerprint.WINDOW_SIZE;
+        long digest = 0;
+        for (int i = windowStart; i < start + MIN_CHUNK_SIZE; i++) {
+            digest = RabinFingerprint.append(digest, buffer.get(i));
+        }
+        if ((digest & BOUNDARY_MASK) == 0) {
+            return MIN_CHUNK_SIZE;
+        }
+        for (int i = start + MIN_CHUNK_SIZE; i < scanEnd; i++) {
+            digest = RabinFingerprint.slide(digest, buffer.get(i - RabinFingerprint.WINDOW_SIZE), buffer.get(i));
+            if ((digest & BOUNDARY_MASK) == 0) {
+                return i + 1 - start;
+            }
         }
+        return scanEnd - start == MAX_CHUNK_SIZE ? MAX_CHUNK_SIZE : -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package org.example.chunking;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gear-hash cut point search over independent stripes, one per vector lane. The gear hash only depends
+ * on the last 64 bytes, so each stripe warms up on the 64 bytes preceding it and yields exactly the
+ * hashes of the sequential scan; the first hit across stripes is the scalar cut point. Only compiled by the
+ * {@code vector} Maven profile, and only loaded when {@code jdk.incubator.vector} is present.
+ */
+final class VectorGearScanner implements GearScanner {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int WINDOW = Long.SIZE;
+    private static final int MAX_BLOCK = 8192;
+    private static final int MIN_STRIPE = 4 * WINDOW;
+    private static final ThreadLocal<long[]> TRANSPOSED =
+            ThreadLocal.withInitial(() -> new long[(MAX_BLOCK / LANES + WINDOW + 1) * LANES]);
+
+    VectorGearScanner() {
+    }
+
+    @Override
+    public int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public int findCut(ByteBuffer buffer, long[] gear, int from, int to, long mask, int blockSize) {
+        long[] transposed = TRANSPOSED.get();
+        blockSize = Math.min(blockSize, MAX_BLOCK);
+        for (int block = from; block < to; block += blockSize) {
+            int count = Math.min(blockSize, to - block);
+            int cut = count < LANES * MIN_STRIPE
+                    ? scalarCut(buffer, gear, block, block + count, mask)
+                    : blockCut(buffer, gear, transposed, block, block + count, mask);
+            if (cut >= 0) {
+                return cut;
+            }
+        }
+        return -1;
+    }
+
+    private static int blockCut(ByteBuffer buffer, long[] gear, long[] transposed, int from, int to, long mask) {
+        int stripe = (to - from + LANES - 1) / LANES;
+        int rows = stripe + WINDOW;
+        int last = from + (LANES - 1) * stripe - WINDOW;
+        int fullRows = Math.min(rows, to - last);
+        for (int row = 0, index = 0; row < rows; row++, index += LANES) {
+            int position = from - WINDOW + row;
+            for (int lane = 0; lane < LANES - 1; lane++) {
+                transposed[index + lane] = gear[buffer.get(position + lane * stripe) & 0xFF];
+            }
+            transposed[index + LANES - 1] = row < fullRows ? gear[buffer.get(last + row) & 0xFF] : 0;
+        }
+
+        LongVector masks = LongVector.broadcast(SPECIES, mask);
+        LongVector hash = LongVector.zero(SPECIES);
+        int row = 0;
+        for (; row < WINDOW; row++) {
+            hash = hash.lanewise(VectorOperators.LSHL, 1).add(LongVector.fromArray(SPECIES, transposed, row * LANES));
+        }
+
+        int cut = Integer.MAX_VALUE;
+        long pending = (1L << LANES) - 1;
+        for (; row < rows; row++) {
+            hash = hash.lanewise(VectorOperators.LSHL, 1).add(LongVector.fromArray(SPECIES, transposed, row * LANES));
+            VectorMask<Long> hits = hash.and(masks).compare(VectorOperators.EQ, 0);
+            if (!hits.anyTrue()) {
+                continue;
+            }
+            long found = hits.toLong() & pending;
+            if (found != 0) {
+                int lane = Long.numberOfTrailingZeros(found);
+                int position = from + lane * stripe + row - WINDOW;
+                if (position < to) {
+                    cut = Math.min(cut, position);
+                    if (lane == Long.numberOfTrailingZeros(pending)) {
+                        return cut;
+                    }
+                    pending &= (1L << lane) - 1;
+                }
+            }
+        }
+        return cut == Integer.MAX_VALUE ? -1 : cut;
+    }
+
+    private static int scalarCut(ByteBuffer buffer, long[] gear, int from, int to, long mask) {
+        long hash = 0;
+        for (int i = from - WINDOW; i < from; i++) {
+            hash = (hash << 1) + gear[buffer.get(i) & 0xFF];
+        }
+        for (int i = from; i < to; i++) {
+            hash = (hash << 1) + gear[buffer.get(i) & 0xFF];
+            if ((hash & mask) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.compression;
+
+public enum Codec {
+    NONE(0),
+    LZ4(1),
+    ZSTD(2),
+    ZSTD_DICT(3),
+    DELTA(4);
+
+    private final byte id;
+
+    Codec(int id) {
+        this.id = (byte) id;
+    }
+
+    public byte id() {
+        return id;
+    }
+
+    public static Codec fromId(byte id) {
+        for (Codec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Codec inconnu : " + id);
+    }
+}
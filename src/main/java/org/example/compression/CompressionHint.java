@@ -0,0 +1,25 @@
+package org.example.compression;
+
+/**
+ * Per-file compression choices: hot files favour LZ4 decode speed, and the category selects the
+ * trained dictionary (null when dictionaries are disabled).
+ */
+public final class CompressionHint {
+    public static final CompressionHint DEFAULT = new CompressionHint(false, null);
+
+    private final boolean hot;
+    private final String category;
+
+    public CompressionHint(boolean hot, String category) {
+        this.hot = hot;
+        this.category = category;
+    }
+
+    public boolean isHot() {
+        return hot;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+}
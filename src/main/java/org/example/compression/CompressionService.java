@@ -1,19 +1,411 @@
 package org.example.compression;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import jakarta.annotation.PreDestroy;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.example.config.CompressionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Every stored chunk starts with a one-byte {@link Codec} header; LZ4 payloads also carry the original
+ * length and dictionary payloads the dictionary id. Chunks that are too small, or whose sampled byte
+ * entropy is close to 8 bits, are stored raw without trying a codec. Hot files use LZ4; small chunks of
+ * a category with a trained dictionary use Zstd with that dictionary, everything else plain Zstd. A
+ * codec that does not shrink the chunk falls back to raw storage. Delta payloads carry the fingerprint of
+ * their base and are Zstd frames compressed with the base's original bytes as a raw-content dictionary.
+ * <p>
+ * Zstd contexts are pooled rather than created per call, and the {@code ByteBuffer} methods work in
+ * caller-provided buffers; heap inputs paired with direct outputs are staged through a
+ * {@link DirectBufferPool}.
+ */
 @Service
 public class CompressionService implements CompressionServiceInterface {
+    private static final int RAW_THRESHOLD = 100;
+    private static final int HEADER_SIZE = 1;
+    private static final int LZ4_HEADER_SIZE = HEADER_SIZE + Integer.BYTES;
+    private static final int DICTIONARY_HEADER_SIZE = HEADER_SIZE + Integer.BYTES;
+    private static final int DELTA_HEADER_SIZE = HEADER_SIZE + 1;
+    private static final int DICTIONARY_THRESHOLD = 32;
+    private static final String DEFAULT_CATEGORY = "default";
+    private static final int ENTROPY_SAMPLE = 1024;
+    private static final double[] COUNT_LOG = new double[ENTROPY_SAMPLE + 1];
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    static {
+        for (int count = 1; count <= ENTROPY_SAMPLE; count++) {
+            COUNT_LOG[count] = count * Math.log(count) / Math.log(2);
+        }
+    }
+
+    private final ThreadLocal<int[]> histogram = ThreadLocal.withInitial(() -> new int[256]);
+    private final Queue<ZstdCompressCtx> compressContexts = new ConcurrentLinkedQueue<>();
+    private final Queue<ZstdCompressCtx> dictionaryCompressContexts = new ConcurrentLinkedQueue<>();
+    private final Queue<ZstdDecompressCtx> decompressContexts = new ConcurrentLinkedQueue<>();
+    private final Queue<ZstdDecompressCtx> dictionaryDecompressContexts = new ConcurrentLinkedQueue<>();
+    private final Queue<ZstdCompressCtx> deltaCompressContexts = new ConcurrentLinkedQueue<>();
+    private final Queue<ZstdDecompressCtx> deltaDecompressContexts = new ConcurrentLinkedQueue<>();
+    private final DirectBufferPool buffers = new DirectBufferPool();
+    private final int zstdLevel;
+    private final double entropyThreshold;
+    private final List<PathMatcher> hotPaths;
+    private final DictionaryRegistry dictionaries;
+    private final boolean dictionaryEnabled;
+    private final int dictionaryMaxChunkSize;
+
+    @Autowired
+    public CompressionService(CompressionProperties properties, DictionaryRegistry dictionaries) {
+        this.dictionaries = dictionaries;
+        this.dictionaryEnabled = dictionaries != null && properties.isDictionaryEnabled();
+        this.dictionaryMaxChunkSize = properties.getDictionaryMaxChunkSize();
+        this.zstdLevel = properties.getZstdLevel();
+        this.entropyThreshold = properties.getEntropyThreshold();
+        this.hotPaths = properties.getHotPaths().stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .toList();
+    }
+
+    public CompressionService() {
+        this(new CompressionProperties(), null);
+    }
+
+    @Override
+    public byte[] compress(byte[] data, CompressionHint hint) throws IOException {
+        return compress(ByteBuffer.wrap(data), hint);
+    }
+
+    @Override
+    public byte[] compress(ByteBuffer data, CompressionHint hint) throws IOException {
+        if (data.hasArray()) {
+            // heap chunks go straight through compressByteArray: a direct target would stage a copy of the input
+            ByteBuffer target = ByteBuffer.allocate(maxStoredLength(data.remaining()));
+            int size = compress(data, target, hint);
+            return Arrays.copyOf(target.array(), size);
+        }
+        ByteBuffer target = buffers.acquire(maxStoredLength(data.remaining()));
+        try {
+            int size = compress(data, target, hint);
+            byte[] stored = new byte[size];
+            target.get(0, stored);
+            return stored;
+        } finally {
+            buffers.release(target);
+        }
+    }
+
+    @Override
+    public int compress(ByteBuffer source, ByteBuffer target, CompressionHint hint) throws IOException {
+        int length = source.remaining();
+        int start = target.position();
+        if (length >= DICTIONARY_THRESHOLD && sampledEntropy(source) <= entropyThreshold) {
+            int packed = -1;
+            if (hint.isHot()) {
+                packed = length < RAW_THRESHOLD ? -1 : lz4(source, target);
+            } else {
+                DictionaryRegistry.Dictionary dictionary = dictionaryFor(hint, source);
+                if (dictionary != null) {
+                    packed = zstd(source, target, dictionary);
+                } else if (length >= RAW_THRESHOLD) {
+                    packed = zstd(source, target, null);
+                }
+            }
+            if (packed >= 0 && packed <= length) {
+                target.position(start + packed);
+                return packed;
+            }
+        }
+        target.put(start, Codec.NONE.id());
+        target.put(start + HEADER_SIZE, source, source.position(), length);
+        target.position(start + HEADER_SIZE + length);
+        return HEADER_SIZE + length;
+    }
+
+    @Override
+    public int maxStoredLength(int length) {
+        return DICTIONARY_HEADER_SIZE + Math.max((int) Zstd.compressBound(length), LZ4_COMPRESSOR.maxCompressedLength(length));
+    }
+
+    @Override
+    public CompressionHint hintFor(Path file) {
+        Path absolute = file.toAbsolutePath();
+        boolean hot = hotPaths.stream().anyMatch(matcher -> matcher.matches(absolute));
+        return new CompressionHint(hot, dictionaryEnabled ? category(absolute) : null);
+    }
+
+    @Override
+    public byte[] decompress(byte[] storedData) {
+        return decompress(storedData, originalLength(ByteBuffer.wrap(storedData)));
+    }
+
+    @Override
+    public byte[] decompress(byte[] storedData, int originalSize) {
+        byte[] original = new byte[originalSize];
+        decompress(ByteBuffer.wrap(storedData), ByteBuffer.wrap(original));
+        return original;
+    }
+
+    @Override
+    public int decompress(ByteBuffer stored, ByteBuffer target) {
+        int start = stored.position();
+        int offset = target.position();
+        Codec codec = Codec.fromId(stored.get(start));
+        int size = switch (codec) {
+            case NONE -> {
+                int length = stored.remaining() - HEADER_SIZE;
+                target.put(offset, stored, start + HEADER_SIZE, length);
+                yield length;
+            }
+            case LZ4 -> {
+                int length = stored.getInt(start + HEADER_SIZE);
+                LZ4_DECOMPRESSOR.decompress(stored, start + LZ4_HEADER_SIZE, target, offset, length);
+                yield length;
+            }
+            case ZSTD, ZSTD_DICT -> zstdDecompress(stored, target, codec);
+            case DELTA -> throw new IllegalStateException("Chunk delta : la base est nécessaire pour le décompresser");
+        };
+        target.position(offset + size);
+        return size;
+    }
+
+    @Override
+    public int originalLength(ByteBuffer stored) {
+        int start = stored.position();
+        return switch (Codec.fromId(stored.get(start))) {
+            case NONE -> stored.remaining() - HEADER_SIZE;
+            case LZ4 -> stored.getInt(start + HEADER_SIZE);
+            case ZSTD -> zstdContentSize(stored, HEADER_SIZE);
+            case ZSTD_DICT -> zstdContentSize(stored, DICTIONARY_HEADER_SIZE);
+            case DELTA -> zstdContentSize(stored, deltaHeaderSize(stored));
+        };
+    }
+
+    @Override
+    public byte[] compressDelta(ByteBuffer source, byte[] base, byte[] baseHash) throws IOException {
+        int length = source.remaining();
+        byte[] input;
+        int inputOffset;
+        if (source.hasArray()) {
+            input = source.array();
+            inputOffset = source.arrayOffset() + source.position();
+        } else {
+            input = new byte[length];
+            source.get(source.position(), input);
+            inputOffset = 0;
+        }
+        int header = DELTA_HEADER_SIZE + baseHash.length;
+        byte[] stored = new byte[header + (int) Zstd.compressBound(length)];
+        ZstdCompressCtx context = deltaCompressContexts.poll();
+        if (context == null) {
+            context = new ZstdCompressCtx().setLevel(zstdLevel);
+        }
+        try {
+            context.loadDict(base);
+            int size = context.compressByteArray(stored, header, stored.length - header, input, inputOffset, length);
+            stored[0] = Codec.DELTA.id();
+            stored[1] = (byte) baseHash.length;
+            System.arraycopy(baseHash, 0, stored, DELTA_HEADER_SIZE, baseHash.length);
+            return Arrays.copyOf(stored, header + size);
+        } catch (ZstdException e) {
+            // a base that parses as a formatted dictionary is not usable as raw content
+            return null;
+        } finally {
+            deltaCompressContexts.offer(context);
+        }
+    }
 
     @Override
-    public byte[] compress(byte[] data) {
-        return data.length < 100 ? data : Zstd.compress(data, 3);
+    public byte[] deltaBase(ByteBuffer stored) {
+        int start = stored.position();
+        if (stored.get(start) != Codec.DELTA.id()) {
+            return null;
+        }
+        byte[] hash = new byte[stored.get(start + HEADER_SIZE)];
+        stored.get(start + DELTA_HEADER_SIZE, hash);
+        return hash;
     }
 
     @Override
-    public byte[] decompress(byte[] compressedData) {
-        long decompressedSize = Zstd.decompressedSize(compressedData);
-        return Zstd.decompress(compressedData, (int) decompressedSize);
+    public int decompressDelta(ByteBuffer stored, byte[] base, ByteBuffer target) {
+        int offset = target.position();
+        int size = zstdDecompress(stored, target, deltaHeaderSize(stored), deltaDecompressContexts,
+                context -> context.loadDict(base));
+        target.position(offset + size);
+        return size;
+    }
+
+    private static int deltaHeaderSize(ByteBuffer stored) {
+        return DELTA_HEADER_SIZE + stored.get(stored.position() + HEADER_SIZE);
+    }
+
+    private static int zstdContentSize(ByteBuffer stored, int header) {
+        int offset = stored.position() + header;
+        if (stored.hasArray()) {
+            return (int) Zstd.decompressedSize(stored.array(), stored.arrayOffset() + offset, stored.limit() - offset);
+        }
+        return (int) Zstd.decompressedDirectByteBufferSize(stored, offset, stored.limit() - offset);
+    }
+
+    @PreDestroy
+    public void close() {
+        compressContexts.forEach(ZstdCompressCtx::close);
+        dictionaryCompressContexts.forEach(ZstdCompressCtx::close);
+        decompressContexts.forEach(ZstdDecompressCtx::close);
+        dictionaryDecompressContexts.forEach(ZstdDecompressCtx::close);
+        deltaCompressContexts.forEach(ZstdCompressCtx::close);
+        deltaDecompressContexts.forEach(ZstdDecompressCtx::close);
+    }
+
+    private static String category(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && dot < name.length() - 1 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : DEFAULT_CATEGORY;
+    }
+
+    private DictionaryRegistry.Dictionary dictionaryFor(CompressionHint hint, ByteBuffer data) {
+        if (hint.getCategory() == null || data.remaining() > dictionaryMaxChunkSize) {
+            return null;
+        }
+        dictionaries.sample(hint.getCategory(), data);
+        return dictionaries.active(hint.getCategory());
+    }
+
+    private double sampledEntropy(ByteBuffer data) {
+        int length = data.remaining();
+        int samples = Math.min(length, ENTROPY_SAMPLE);
+        int stride = length / samples;
+        int[] counts = histogram.get();
+        Arrays.fill(counts, 0);
+        for (int i = 0, position = data.position(); i < samples; i++, position += stride) {
+            counts[data.get(position) & 0xFF]++;
+        }
+        double sum = 0;
+        for (int count : counts) {
+            sum += COUNT_LOG[count];
+        }
+        return (COUNT_LOG[samples] - sum) / samples;
+    }
+
+    private int lz4(ByteBuffer source, ByteBuffer target) {
+        int start = target.position();
+        int length = source.remaining();
+        target.put(start, Codec.LZ4.id()).putInt(start + HEADER_SIZE, length);
+        int size = LZ4_COMPRESSOR.compress(source, source.position(), length, target, start + LZ4_HEADER_SIZE,
+                target.limit() - start - LZ4_HEADER_SIZE);
+        return LZ4_HEADER_SIZE + size;
+    }
+
+    private int zstd(ByteBuffer source, ByteBuffer target, DictionaryRegistry.Dictionary dictionary) throws IOException {
+        int start = target.position();
+        int header = dictionary == null ? HEADER_SIZE : DICTIONARY_HEADER_SIZE;
+        Queue<ZstdCompressCtx> pool = dictionary == null ? compressContexts : dictionaryCompressContexts;
+        ZstdCompressCtx context = pool.poll();
+        if (context == null) {
+            context = new ZstdCompressCtx().setLevel(zstdLevel);
+        }
+        ByteBuffer staged = null;
+        try {
+            if (dictionary != null) {
+                context.loadDict(dictionary.getCompressor());
+            }
+            int offset = start + header;
+            int capacity = target.limit() - offset;
+            int length = source.remaining();
+            int size;
+            if (source.hasArray() && target.hasArray()) {
+                size = context.compressByteArray(target.array(), target.arrayOffset() + offset, capacity,
+                        source.array(), source.arrayOffset() + source.position(), length);
+            } else if (target.isDirect()) {
+                if (!source.isDirect()) {
+                    staged = stage(source);
+                }
+                ByteBuffer input = staged != null ? staged : source;
+                size = context.compressDirectByteBuffer(target, offset, capacity, input, input.position(), length);
+            } else {
+                throw new IllegalArgumentException("Buffer cible non pris en charge pour Zstd");
+            }
+            target.put(start, (dictionary == null ? Codec.ZSTD : Codec.ZSTD_DICT).id());
+            if (dictionary != null) {
+                target.putInt(start + HEADER_SIZE, dictionary.getId());
+            }
+            return header + size;
+        } catch (ZstdException e) {
+            throw new IOException("Erreur de compression Zstd : " + e.getMessage(), e);
+        } finally {
+            if (staged != null) {
+                buffers.release(staged);
+            }
+            pool.offer(context);
+        }
+    }
+
+    private int zstdDecompress(ByteBuffer stored, ByteBuffer target, Codec codec) {
+        if (codec == Codec.ZSTD) {
+            return zstdDecompress(stored, target, HEADER_SIZE, decompressContexts, context -> { });
+        }
+        if (dictionaries == null) {
+            throw new IllegalStateException("Aucun registre de dictionnaires pour décompresser ce chunk");
+        }
+        int id = stored.getInt(stored.position() + HEADER_SIZE);
+        return zstdDecompress(stored, target, DICTIONARY_HEADER_SIZE, dictionaryDecompressContexts,
+                context -> context.loadDict(dictionaries.decompressor(id)));
+    }
+
+    private int zstdDecompress(ByteBuffer stored, ByteBuffer target, int header, Queue<ZstdDecompressCtx> pool,
+                               Consumer<ZstdDecompressCtx> dictionary) {
+        int start = stored.position();
+        ZstdDecompressCtx context = pool.poll();
+        if (context == null) {
+            context = new ZstdDecompressCtx();
+        }
+        ByteBuffer staged = null;
+        try {
+            dictionary.accept(context);
+            int offset = target.position();
+            int length = stored.remaining() - header;
+            if (stored.hasArray() && target.hasArray()) {
+                return context.decompressByteArray(target.array(), target.arrayOffset() + offset, target.remaining(),
+                        stored.array(), stored.arrayOffset() + start + header, length);
+            }
+            if (!target.isDirect()) {
+                throw new IllegalArgumentException("Buffer cible non pris en charge pour Zstd");
+            }
+            if (!stored.isDirect()) {
+                staged = stage(stored);
+            }
+            ByteBuffer input = staged != null ? staged : stored;
+            return context.decompressDirectByteBuffer(target, offset, target.remaining(),
+                    input, input.position() + header, length);
+        } catch (ZstdException e) {
+            throw new IllegalStateException("Erreur de décompression Zstd : " + e.getMessage(), e);
+        } finally {
+            if (staged != null) {
+                buffers.release(staged);
+            }
+            pool.offer(context);
+        }
+    }
+
+    private ByteBuffer stage(ByteBuffer heap) {
+        ByteBuffer staged = buffers.acquire(heap.remaining());
+        staged.put(0, heap, heap.position(), heap.remaining());
+        return staged;
     }
 }
@@ -1,9 +1,54 @@
 package org.example.compression;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 public interface CompressionServiceInterface {
-    byte[] compress(byte[] data) throws IOException;
+    default byte[] compress(byte[] data) throws IOException {
+        return compress(data, CompressionHint.DEFAULT);
+    }
 
-    byte[] decompress(byte[] compressedData);
+    default byte[] compress(ByteBuffer data) throws IOException {
+        return compress(data, CompressionHint.DEFAULT);
+    }
+
+    byte[] compress(byte[] data, CompressionHint hint) throws IOException;
+
+    byte[] compress(ByteBuffer data, CompressionHint hint) throws IOException;
+
+    /**
+     * Writes the stored form of {@code source} at the target position and advances it; the source position
+     * is left unchanged. The target needs {@link #maxStoredLength} bytes remaining.
+     */
+    int compress(ByteBuffer source, ByteBuffer target, CompressionHint hint) throws IOException;
+
+    int maxStoredLength(int length);
+
+    CompressionHint hintFor(Path file);
+
+    byte[] decompress(byte[] storedData);
+
+    byte[] decompress(byte[] storedData, int originalSize);
+
+    /**
+     * Writes the original bytes of the remaining {@code stored} chunk at the target position and advances it;
+     * the stored position is left unchanged.
+     */
+    int decompress(ByteBuffer stored, ByteBuffer target);
+
+    int originalLength(ByteBuffer stored);
+
+    /**
+     * Stores {@code source} as a delta against the original bytes of a similar chunk; null when the encoder
+     * rejects the base.
+     */
+    byte[] compressDelta(ByteBuffer source, byte[] base, byte[] baseHash) throws IOException;
+
+    /**
+     * The fingerprint bytes of the base of a delta chunk, or null when {@code stored} is not a delta.
+     */
+    byte[] deltaBase(ByteBuffer stored);
+
+    int decompressDelta(ByteBuffer stored, byte[] base, ByteBuffer target);
 }
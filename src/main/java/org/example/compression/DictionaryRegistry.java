@@ -0,0 +1,129 @@
+package org.example.compression;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+import org.example.config.CompressionProperties;
+import org.example.repository.DictionaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Trained Zstd dictionaries, one active version per category. Every version stays loaded for decompression,
+ * since stored chunks reference the exact dictionary id they were compressed with. Small chunks of a category
+ * without a dictionary are sampled until the sample budget is full, then the dictionary is trained, persisted
+ * and activated by the thread that filled the budget.
+ */
+@Component
+public class DictionaryRegistry {
+    private static final Logger logger = Logger.getLogger(DictionaryRegistry.class.getName());
+
+    private final DictionaryRepository repository;
+    private final int level;
+    private final int dictionarySize;
+    private final int sampleSize;
+    private final Map<Integer, ZstdDictDecompress> decompressors = new ConcurrentHashMap<>();
+    private final Map<String, Dictionary> active = new ConcurrentHashMap<>();
+    private final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    public static final class Dictionary {
+        private final int id;
+        private final ZstdDictCompress compressor;
+
+        private Dictionary(int id, ZstdDictCompress compressor) {
+            this.id = id;
+            this.compressor = compressor;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public ZstdDictCompress getCompressor() {
+            return compressor;
+        }
+    }
+
+    private final class Sampler {
+        private final ZstdDictTrainer trainer = new ZstdDictTrainer(sampleSize, dictionarySize);
+        private final AtomicBoolean finished = new AtomicBoolean();
+    }
+
+    @Autowired
+    public DictionaryRegistry(CompressionProperties properties, DictionaryRepository repository) {
+        this.repository = repository;
+        this.level = properties.getZstdLevel();
+        this.dictionarySize = properties.getDictionarySize();
+        this.sampleSize = properties.getDictionarySampleSize();
+        repository.forEach(this::register);
+        if (!active.isEmpty()) {
+            logger.info("📚 Dictionnaires Zstd chargés : " + decompressors.size() + " version(s), catégories " + active.keySet());
+        }
+    }
+
+    public Dictionary active(String category) {
+        return active.get(category);
+    }
+
+    public ZstdDictDecompress decompressor(int id) {
+        ZstdDictDecompress dictionary = decompressors.get(id);
+        if (dictionary == null) {
+            throw new IllegalStateException("Dictionnaire Zstd inconnu : " + id);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Offers a chunk as training sample; a no-op once the category has a dictionary and no retraining was requested.
+     */
+    public void sample(String category, ByteBuffer chunk) {
+        Sampler sampler = samplers.get(category);
+        if (sampler == null) {
+            if (active.containsKey(category)) {
+                return;
+            }
+            sampler = samplers.computeIfAbsent(category, key -> new Sampler());
+        }
+        if (sampler.finished.get()) {
+            return;
+        }
+        byte[] sample = new byte[chunk.remaining()];
+        chunk.duplicate().get(sample);
+        if (!sampler.trainer.addSample(sample) && sampler.finished.compareAndSet(false, true)) {
+            train(category, sampler);
+        }
+    }
+
+    /**
+     * Starts a new sampling round; the next trained version replaces the active one for new chunks.
+     */
+    public void retrain(String category) {
+        samplers.put(category, new Sampler());
+    }
+
+    private void train(String category, Sampler sampler) {
+        long start = System.nanoTime();
+        try {
+            byte[] data = sampler.trainer.trainSamples();
+            int id = repository.save(category, data);
+            register(id, category, data);
+            samplers.remove(category, sampler);
+            logger.info("📚 Dictionnaire Zstd " + id + " entraîné pour '" + category + "' (" + data.length + " octets, "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        } catch (ZstdException e) {
+            logger.warning("⚠️ Échec de l'entraînement du dictionnaire pour '" + category + "' : " + e.getMessage());
+        }
+    }
+
+    private void register(int id, String category, byte[] data) {
+        decompressors.put(id, new ZstdDictDecompress(data));
+        active.put(category, new Dictionary(id, new ZstdDictCompress(data, level)));
+    }
+}
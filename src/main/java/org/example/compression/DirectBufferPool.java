@@ -0,0 +1,51 @@
+package org.example.compression;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reusable direct buffers in power-of-two size classes from 4 KiB to 4 MiB. Larger requests are
+ * allocated on demand and dropped on release; each class keeps a bounded number of idle buffers.
+ */
+public final class DirectBufferPool {
+    private static final int MIN_CLASS = 12;
+    private static final int MAX_CLASS = 22;
+
+    private final ArrayBlockingQueue<ByteBuffer>[] classes;
+
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(int buffersPerClass) {
+        classes = new ArrayBlockingQueue[MAX_CLASS - MIN_CLASS + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ArrayBlockingQueue<>(buffersPerClass);
+        }
+    }
+
+    public DirectBufferPool() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a cleared direct buffer whose limit is {@code capacity}.
+     */
+    public ByteBuffer acquire(int capacity) {
+        int sizeClass = Math.max(MIN_CLASS, Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1));
+        if (sizeClass > MAX_CLASS) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        ByteBuffer buffer = classes[sizeClass - MIN_CLASS].poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(1 << sizeClass);
+        }
+        buffer.clear().limit(capacity);
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+        if (buffer.isDirect() && Integer.bitCount(capacity) == 1 && sizeClass >= MIN_CLASS && sizeClass <= MAX_CLASS) {
+            classes[sizeClass - MIN_CLASS].offer(buffer);
+        }
+    }
+}
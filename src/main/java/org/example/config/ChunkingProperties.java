@@ -0,0 +1,79 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "chunking")
+public class ChunkingProperties {
+    private int minSize = 2048;
+    private int avgSize = 8192;
+    private int maxSize = 65536;
+    private int normalizationLevel = 2;
+    private long gearSeed = 0x5DEECE66DL;
+    private boolean vectorized = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int parallelSegmentSize = 32 * 1024 * 1024;
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getAvgSize() {
+        return avgSize;
+    }
+
+    public void setAvgSize(int avgSize) {
+        this.avgSize = avgSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getNormalizationLevel() {
+        return normalizationLevel;
+    }
+
+    public void setNormalizationLevel(int normalizationLevel) {
+        this.normalizationLevel = normalizationLevel;
+    }
+
+    public long getGearSeed() {
+        return gearSeed;
+    }
+
+    public void setGearSeed(long gearSeed) {
+        this.gearSeed = gearSeed;
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    public void setVectorized(boolean vectorized) {
+        this.vectorized = vectorized;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelSegmentSize() {
+        return parallelSegmentSize;
+    }
+
+    public void setParallelSegmentSize(int parallelSegmentSize) {
+        this.parallelSegmentSize = parallelSegmentSize;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "compression")
+public class CompressionProperties {
+    private int zstdLevel = 3;
+    private double entropyThreshold = 7.6;
+    private List<String> hotPaths = new ArrayList<>();
+    private boolean dictionaryEnabled = true;
+    private int dictionarySize = 32 * 1024;
+    private int dictionarySampleSize = 1024 * 1024;
+    private int dictionaryMaxChunkSize = 8 * 1024;
+
+    public int getZstdLevel() {
+        return zstdLevel;
+    }
+
+    public void setZstdLevel(int zstdLevel) {
+        this.zstdLevel = zstdLevel;
+    }
+
+    public double getEntropyThreshold() {
+        return entropyThreshold;
+    }
+
+    public void setEntropyThreshold(double entropyThreshold) {
+        this.entropyThreshold = entropyThreshold;
+    }
+
+    public List<String> getHotPaths() {
+        return hotPaths;
+    }
+
+    public void setHotPaths(List<String> hotPaths) {
+        this.hotPaths = hotPaths;
+    }
+
+    public boolean isDictionaryEnabled() {
+        return dictionaryEnabled;
+    }
+
+    public void setDictionaryEnabled(boolean dictionaryEnabled) {
+        this.dictionaryEnabled = dictionaryEnabled;
+    }
+
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    public void setDictionarySize(int dictionarySize) {
+        this.dictionarySize = dictionarySize;
+    }
+
+    public int getDictionarySampleSize() {
+        return dictionarySampleSize;
+    }
+
+    public void setDictionarySampleSize(int dictionarySampleSize) {
+        this.dictionarySampleSize = dictionarySampleSize;
+    }
+
+    public int getDictionaryMaxChunkSize() {
+        return dictionaryMaxChunkSize;
+    }
+
+    public void setDictionaryMaxChunkSize(int dictionaryMaxChunkSize) {
+        this.dictionaryMaxChunkSize = dictionaryMaxChunkSize;
+    }
+}
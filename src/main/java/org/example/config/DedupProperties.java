@@ -0,0 +1,71 @@
+package org.example.config;
+
+import org.example.deduplication.FingerprintAlgorithm;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "dedup")
+public class DedupProperties {
+    private String indexPath = "data/dedup.idx";
+    private long expectedChunks = 16_000_000;
+    private int hotCacheSize = 100_000;
+    private String bloomPath = "data/dedup.bloom";
+    private double bloomFalsePositiveRate = 0.01;
+    private FingerprintAlgorithm fingerprint = FingerprintAlgorithm.XXH64X2;
+    private boolean verifyOnMatch = false;
+
+    public String getIndexPath() {
+        return indexPath;
+    }
+
+    public void setIndexPath(String indexPath) {
+        this.indexPath = indexPath;
+    }
+
+    public long getExpectedChunks() {
+        return expectedChunks;
+    }
+
+    public void setExpectedChunks(long expectedChunks) {
+        this.expectedChunks = expectedChunks;
+    }
+
+    public int getHotCacheSize() {
+        return hotCacheSize;
+    }
+
+    public void setHotCacheSize(int hotCacheSize) {
+        this.hotCacheSize = hotCacheSize;
+    }
+
+    public String getBloomPath() {
+        return bloomPath;
+    }
+
+    public void setBloomPath(String bloomPath) {
+        this.bloomPath = bloomPath;
+    }
+
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    public void setBloomFalsePositiveRate(double bloomFalsePositiveRate) {
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+    }
+
+    public FingerprintAlgorithm getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(FingerprintAlgorithm fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public boolean isVerifyOnMatch() {
+        return verifyOnMatch;
+    }
+
+    public void setVerifyOnMatch(boolean verifyOnMatch) {
+        this.verifyOnMatch = verifyOnMatch;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int maxInFlightFiles = 2 * Runtime.getRuntime().availableProcessors();
+    private int computeThreads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private int batchSize = 256;
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxInFlightFiles() {
+        return maxInFlightFiles;
+    }
+
+    public void setMaxInFlightFiles(int maxInFlightFiles) {
+        this.maxInFlightFiles = maxInFlightFiles;
+    }
+
+    public int getComputeThreads() {
+        return computeThreads;
+    }
+
+    public void setComputeThreads(int computeThreads) {
+        this.computeThreads = computeThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
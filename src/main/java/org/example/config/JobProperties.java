@@ -0,0 +1,25 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "jobs")
+public class JobProperties {
+    private int walkerThreads = Runtime.getRuntime().availableProcessors();
+    private boolean smallFilesFirst = true;
+
+    public int getWalkerThreads() {
+        return walkerThreads;
+    }
+
+    public void setWalkerThreads(int walkerThreads) {
+        this.walkerThreads = walkerThreads;
+    }
+
+    public boolean isSmallFilesFirst() {
+        return smallFilesFirst;
+    }
+
+    public void setSmallFilesFirst(boolean smallFilesFirst) {
+        this.smallFilesFirst = smallFilesFirst;
+    }
+}
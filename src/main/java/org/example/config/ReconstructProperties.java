@@ -0,0 +1,34 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "reconstruct")
+public class ReconstructProperties {
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int windowSize = 64;
+    private int gatherSize = 16;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getGatherSize() {
+        return gatherSize;
+    }
+
+    public void setGatherSize(int gatherSize) {
+        this.gatherSize = gatherSize;
+    }
+}
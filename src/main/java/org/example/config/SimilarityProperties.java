@@ -0,0 +1,43 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "similarity")
+public class SimilarityProperties {
+    private boolean enabled = false;
+    private int maxDepth = 3;
+    private int minChunkSize = 512;
+    private long baseCacheBytes = 64L * 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public long getBaseCacheBytes() {
+        return baseCacheBytes;
+    }
+
+    public void setBaseCacheBytes(long baseCacheBytes) {
+        this.baseCacheBytes = baseCacheBytes;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+    private String backend = "sqlite";
+    private String packDirectory = "data/packs";
+    private long segmentSize = 256L * 1024 * 1024;
+    private boolean syncWrites = true;
+    private double compactionLiveRatio = 0.5;
+    private long compactionIntervalSeconds = 600;
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public String getPackDirectory() {
+        return packDirectory;
+    }
+
+    public void setPackDirectory(String packDirectory) {
+        this.packDirectory = packDirectory;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    public double getCompactionLiveRatio() {
+        return compactionLiveRatio;
+    }
+
+    public void setCompactionLiveRatio(double compactionLiveRatio) {
+        this.compactionLiveRatio = compactionLiveRatio;
+    }
+
+    public long getCompactionIntervalSeconds() {
+        return compactionIntervalSeconds;
+    }
+
+    public void setCompactionIntervalSeconds(long compactionIntervalSeconds) {
+        this.compactionIntervalSeconds = compactionIntervalSeconds;
+    }
+}
@@ -1,10 +1,31 @@
 package org.example.controller;
 
-import org.example.model.Chunk;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.compression.DictionaryRegistry;
+import org.example.deduplication.DedupStats;
+import org.example.deduplication.DuplicateDetectorInterface;
+import org.example.metrics.MetricsSnapshot;
+import org.example.metrics.PipelineMetrics;
+import org.example.model.FileVersion;
 import org.example.reconstruction.FileReconstructor;
 import org.example.service.FileProcessor;
+import org.example.service.IngestResult;
+import org.example.service.ParallelIngestService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -13,28 +34,149 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/files")
 public class FileController {
     private static final Logger logger = Logger.getLogger(FileController.class.getName());
+    private static final int MAX_PAGE_SIZE = 5000;
     private final FileProcessor fileProcessor;
     private final FileReconstructor fileReconstructor;
+    private final ParallelIngestService ingestService;
+    private final DuplicateDetectorInterface deduplicator;
+    private final DictionaryRegistry dictionaries;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
 
-    public FileController(FileProcessor fileProcessor, FileReconstructor fileReconstructor) {
+    public FileController(FileProcessor fileProcessor, FileReconstructor fileReconstructor, ParallelIngestService ingestService,
+                          DuplicateDetectorInterface deduplicator, DictionaryRegistry dictionaries, ObjectMapper objectMapper,
+                          PipelineMetrics metrics) {
         this.fileProcessor = fileProcessor;
         this.fileReconstructor = fileReconstructor;
+        this.ingestService = ingestService;
+        this.deduplicator = deduplicator;
+        this.dictionaries = dictionaries;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
     }
 
     @PostMapping("/process")
-    public ResponseEntity<List<Chunk>> processFile(@RequestParam String filePath) {
+    public ResponseEntity<IngestResult> processFile(@RequestParam String filePath) {
         try {
-            List<Chunk> processedChunks = fileProcessor.processFile(filePath);
-            return ResponseEntity.ok(processedChunks);
+            return ResponseEntity.ok(IngestResult.success(filePath, ingestService.process(filePath)));
         } catch (Exception e) {
             logger.severe("❌ Erreur lors du traitement du fichier : " + e.getMessage());
+            return ResponseEntity.internalServerError().body(IngestResult.failure(filePath, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/process-batch")
+    public ResponseEntity<List<IngestResult>> processFiles(@RequestBody List<String> filePaths) {
+        try {
+            return ResponseEntity.ok(ingestService.processAll(filePaths));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return ResponseEntity.internalServerError().body(null);
         }
     }
 
+    /**
+     * One keyset page of chunk metadata, streamed from the cursor; pass the returned {@code next} as {@code after}
+     * to get the following page.
+     */
     @GetMapping
-    public ResponseEntity<List<Chunk>> getAllChunks() {
-        return ResponseEntity.ok(fileProcessor.getAllChunks());
+    public ResponseEntity<StreamingResponseBody> listChunks(@RequestParam(required = false) String filePath,
+                                                            @RequestParam(required = false) Long after,
+                                                            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long start = after == null ? -1 : after;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                long[] last = {start};
+                int[] count = {0};
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("chunks");
+                fileProcessor.forEachChunkSummary(filePath, start, pageSize, summary -> {
+                    try {
+                        generator.writeObject(summary);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    last[0] = summary.getCursor();
+                    count[0]++;
+                });
+                generator.writeEndArray();
+                if (count[0] == pageSize) {
+                    generator.writeNumberField("next", last[0]);
+                } else {
+                    generator.writeNullField("next");
+                }
+                generator.writeEndObject();
+            }
+        });
+    }
+
+    @GetMapping("/dedup/stats")
+    public ResponseEntity<DedupStats> getDedupStats() {
+        return ResponseEntity.ok(deduplicator.stats());
+    }
+
+    /**
+     * Cumulative counters since startup; rates are obtained by diffing two snapshots.
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<MetricsSnapshot> getMetrics() {
+        return ResponseEntity.ok(metrics.snapshot());
+    }
+
+    @PostMapping("/dictionaries/retrain")
+    public ResponseEntity<String> retrainDictionary(@RequestParam String category) {
+        dictionaries.retrain(category);
+        return ResponseEntity.accepted().body("Échantillonnage relancé pour " + category);
+    }
+
+    /**
+     * Streams the reassembled file without writing a local copy. A single byte range is honoured with a 206;
+     * multi-range requests get the whole file. The body is streamed from the version the headers were computed
+     * for; if the file is re-ingested in between, the download fails instead of mixing both versions.
+     */
+    @GetMapping("/content")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@RequestParam String filePath,
+                                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        FileVersion content = fileReconstructor.contentVersion(filePath);
+        if (content == null) {
+            return ResponseEntity.notFound().build();
+        }
+        long length = content.getSize();
+        long from = 0;
+        long to = length;
+        boolean partial = false;
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    from = ranges.get(0).getRangeStart(length);
+                    to = ranges.get(0).getRangeEnd(length) + 1;
+                    partial = true;
+                }
+                if (from >= length || from >= to) {
+                    throw new IllegalArgumentException("Plage hors du fichier : " + range);
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+
+        int version = content.getVersion();
+        long start = from;
+        long end = to;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(end - start)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(Paths.get(filePath).getFileName().toString(), StandardCharsets.UTF_8).build().toString());
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        return response.body(output -> fileReconstructor.restore(filePath, version, start, end, Channels.newChannel(output)));
     }
 
     @PostMapping("/reconstruct")
@@ -0,0 +1,54 @@
+package org.example.controller;
+
+import org.example.job.IngestJobService;
+import org.example.job.JobProgress;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.logging.Logger;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private static final Logger logger = Logger.getLogger(JobController.class.getName());
+    private final IngestJobService jobService;
+
+    public JobController(IngestJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Queues a file, a directory tree or an absolute glob and returns at once; poll the Location for progress.
+     */
+    @PostMapping
+    public ResponseEntity<JobProgress> submit(@RequestParam String source) {
+        try {
+            JobProgress job = jobService.submit(source);
+            return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job);
+        } catch (IllegalArgumentException e) {
+            logger.warning("⚠️ Job refusé : " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<JobProgress>> runningJobs() {
+        return ResponseEntity.ok(jobService.runningJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobProgress> progress(@PathVariable String id) {
+        return ResponseEntity.of(jobService.progress(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobProgress> cancel(@PathVariable String id) {
+        boolean cancelled = jobService.cancel(id);
+        return jobService.progress(id)
+                .map(job -> ResponseEntity.status(cancelled ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(job))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.deduplication;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BloomFilter {
+    private static final long MAGIC = 0x314D4F4F4C424643L;
+    private static final int HEADER_SIZE = 32;
+    private static final long MAX_BITS = 1L << 33;
+    private static final VarHandle WORD = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long numBits;
+    private final int numHashes;
+    private final ByteBuffer bits;
+    private final LongAdder insertions = new LongAdder();
+
+    private BloomFilter(long numBits, int numHashes) {
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.bits = ByteBuffer.allocateDirect((int) (numBits / Byte.SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(1, expectedEntries);
+        long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long numBits = Math.min(MAX_BITS, Math.max(Long.SIZE, (optimalBits + Long.SIZE - 1) / Long.SIZE * Long.SIZE));
+        int numHashes = Math.max(1, (int) Math.round((double) numBits / entries * Math.log(2)));
+        return new BloomFilter(numBits, numHashes);
+    }
+
+    public static BloomFilter load(Path path, long expectedEntries, double falsePositiveRate, long expectedTag) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        BloomFilter filter = create(expectedEntries, falsePositiveRate);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getLong(0) != MAGIC || header.getLong(8) != filter.numBits
+                    || header.getInt(16) != filter.numHashes || header.getLong(24) != expectedTag
+                    || channel.size() != HEADER_SIZE + filter.numBits / Byte.SIZE) {
+                return null;
+            }
+            readFully(channel, filter.bits.duplicate().clear(), HEADER_SIZE);
+            filter.insertions.add(expectedTag);
+        }
+        return filter;
+    }
+
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            long word = (long) WORD.get(bits, wordOffset(bit));
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            WORD.getAndBitwiseOr(bits, wordOffset(bit), 1L << bit);
+        }
+        insertions.increment();
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-numHashes * (double) insertions.sum() / numBits), numHashes);
+    }
+
+    public long memoryBytes() {
+        return numBits / Byte.SIZE;
+    }
+
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    public void save(Path path, long tag) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path snapshot = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putLong(numBits).putInt(numHashes).putInt(0).putLong(tag).flip();
+            ByteBuffer content = bits.duplicate().clear();
+            while (header.hasRemaining() || content.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, content});
+            }
+            channel.force(true);
+        }
+        Files.move(snapshot, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int wordOffset(long bit) {
+        return (int) (bit >>> 6) * Long.BYTES;
+    }
+
+    private static long secondHash(long hash) {
+        long mixed = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (mixed ^ (mixed >>> 33)) | 1;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Snapshot du filtre de Bloom tronqué");
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.deduplication;
+
+/**
+ * Outcome of {@link DuplicateDetectorInterface#claim}.
+ */
+public enum ClaimResult {
+    /**
+     * The caller stores the chunk, then commits or releases the claim.
+     */
+    CLAIMED,
+    /**
+     * The chunk is already stored.
+     */
+    STORED,
+    /**
+     * Another ingest claimed the chunk and has not stored it yet; it may still give it up.
+     */
+    IN_FLIGHT
+}
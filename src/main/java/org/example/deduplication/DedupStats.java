@@ -0,0 +1,49 @@
+package org.example.deduplication;
+
+public class DedupStats {
+    private final long indexSize;
+    private final long bloomMemoryBytes;
+    private final long bloomInsertions;
+    private final double bloomExpectedFalsePositiveRate;
+    private final long bloomNegatives;
+    private final long bloomFalsePositives;
+
+    public DedupStats(long indexSize, long bloomMemoryBytes, long bloomInsertions, double bloomExpectedFalsePositiveRate,
+                      long bloomNegatives, long bloomFalsePositives) {
+        this.indexSize = indexSize;
+        this.bloomMemoryBytes = bloomMemoryBytes;
+        this.bloomInsertions = bloomInsertions;
+        this.bloomExpectedFalsePositiveRate = bloomExpectedFalsePositiveRate;
+        this.bloomNegatives = bloomNegatives;
+        this.bloomFalsePositives = bloomFalsePositives;
+    }
+
+    public long getIndexSize() {
+        return indexSize;
+    }
+
+    public long getBloomMemoryBytes() {
+        return bloomMemoryBytes;
+    }
+
+    public long getBloomInsertions() {
+        return bloomInsertions;
+    }
+
+    public double getBloomExpectedFalsePositiveRate() {
+        return bloomExpectedFalsePositiveRate;
+    }
+
+    public long getBloomNegatives() {
+        return bloomNegatives;
+    }
+
+    public long getBloomFalsePositives() {
+        return bloomFalsePositives;
+    }
+
+    public double getBloomObservedFalsePositiveRate() {
+        long newChunks = bloomNegatives + bloomFalsePositives;
+        return newChunks == 0 ? 0 : (double) bloomFalsePositives / newChunks;
+    }
+}
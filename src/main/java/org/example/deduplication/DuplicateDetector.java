@@ -1,35 +1,198 @@
 package org.example.deduplication;
 
-import net.jpountz.xxhash.XXHash64;
-import net.jpountz.xxhash.XXHashFactory;
+import jakarta.annotation.PreDestroy;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.config.DedupProperties;
+import org.example.metrics.PipelineMetrics;
+import org.example.model.ChunkFingerprint;
+import org.example.repository.ChunkStoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 @Service
 public class DuplicateDetector implements DuplicateDetectorInterface {
     private static final Logger logger = Logger.getLogger(DuplicateDetector.class.getName());
-    private final Cache<Long, Boolean> chunkHashes = Caffeine.newBuilder()
-            .maximumSize(100_000)
-            .expireAfterAccess(10, java.util.concurrent.TimeUnit.MINUTES)
-            .build();
+    private final FingerprintAlgorithm algorithm;
+    private final boolean verifyOnMatch;
+    private final ChunkStoreRepository chunkStoreRepository;
+    private final HashIndex index;
+    private final BloomFilter bloomFilter;
+    private final Path bloomPath;
+    private final Cache<ChunkFingerprint, Boolean> chunkHashes;
+    private final Map<ChunkFingerprint, CountDownLatch> pendingClaims = new ConcurrentHashMap<>();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    @Autowired
+    public DuplicateDetector(DedupProperties properties, ChunkStoreRepository chunkStoreRepository,
+                             PipelineMetrics metrics) throws IOException {
+        this.algorithm = properties.getFingerprint();
+        this.verifyOnMatch = properties.isVerifyOnMatch() && !algorithm.isCryptographic();
+        this.chunkStoreRepository = chunkStoreRepository;
+        this.index = HashIndex.open(Path.of(properties.getIndexPath()), properties.getExpectedChunks());
+        this.chunkHashes = hotTier(properties.getHotCacheSize());
+        this.bloomPath = Path.of(properties.getBloomPath());
+        boolean rebuilt = index.needsRebuild();
+        if (rebuilt) {
+            long start = System.currentTimeMillis();
+            chunkStoreRepository.forEachHash(hash -> index.addIfAbsent(hash.prefix()));
+            logger.info("♻️ Index de déduplication reconstruit : " + index.size() + " hashes en "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } else {
+            logger.info("✅ Index de déduplication chargé : " + index.size() + " hashes");
+        }
+
+        long expectedChunks = Math.max(properties.getExpectedChunks(), index.size());
+        BloomFilter snapshot = rebuilt ? null
+                : BloomFilter.load(bloomPath, expectedChunks, properties.getBloomFalsePositiveRate(), index.size());
+        if (snapshot == null) {
+            snapshot = BloomFilter.create(expectedChunks, properties.getBloomFalsePositiveRate());
+            index.forEach(snapshot::put);
+        }
+        this.bloomFilter = snapshot;
+
+        if (chunkHashes != null) {
+            metrics.cache("dedup.hot-tier", chunkHashes);
+        }
+        metrics.gauge("dedup.index.size", index::size);
+        metrics.gauge("dedup.pending-claims", pendingClaims::size);
+    }
+
+    public DuplicateDetector() {
+        this.algorithm = FingerprintAlgorithm.XXH64;
+        this.verifyOnMatch = false;
+        this.chunkStoreRepository = null;
+        this.index = HashIndex.inMemory(1 << 20);
+        this.bloomFilter = BloomFilter.create(1 << 20, 0.01);
+        this.bloomPath = null;
+        this.chunkHashes = hotTier(100_000);
+    }
 
     @Override
     public boolean isDuplicate(byte[] chunk) {
-        long hash = computeXXHash(chunk);
-        boolean isDuplicate = chunkHashes.getIfPresent(hash) != null;
+        ChunkFingerprint fingerprint = fingerprint(chunk);
+        if (claim(fingerprint) != ClaimResult.CLAIMED) {
+            return true;
+        }
+        commit(fingerprint);
+        return false;
+    }
+
+    @Override
+    public ClaimResult claim(ChunkFingerprint fingerprint) {
+        boolean maybeKnown = bloomFilter.mightContain(fingerprint.prefix());
+        if (maybeKnown && isKnown(fingerprint)) {
+            return ClaimResult.STORED;
+        }
+        if (pendingClaims.putIfAbsent(fingerprint, new CountDownLatch(1)) != null) {
+            return ClaimResult.IN_FLIGHT;
+        }
+        if (bloomFilter.mightContain(fingerprint.prefix()) && isIndexed(fingerprint)) {
+            release(fingerprint);
+            return ClaimResult.STORED;
+        }
+        (maybeKnown ? bloomFalsePositives : bloomNegatives).increment();
+        return ClaimResult.CLAIMED;
+    }
 
-        if (!isDuplicate) {
-            chunkHashes.put(hash, true);
+    @Override
+    public void awaitClaim(ChunkFingerprint fingerprint) throws InterruptedException {
+        CountDownLatch claim = pendingClaims.get(fingerprint);
+        if (claim != null) {
+            claim.await();
         }
-        return isDuplicate;
     }
 
     @Override
-    public long computeXXHash(byte[] data) {
-        XXHashFactory factory = XXHashFactory.unsafeInstance();
-        XXHash64 xxHash64 = factory.hash64();
-        return xxHash64.hash(data, 0, data.length, 0);
+    public void commit(ChunkFingerprint fingerprint) {
+        index.addIfAbsent(fingerprint.prefix());
+        bloomFilter.put(fingerprint.prefix());
+        if (chunkHashes != null) {
+            chunkHashes.put(fingerprint, true);
+        }
+        release(fingerprint);
+    }
+
+    @Override
+    public void release(ChunkFingerprint fingerprint) {
+        CountDownLatch claim = pendingClaims.remove(fingerprint);
+        if (claim != null) {
+            claim.countDown();
+        }
+    }
+
+    /**
+     * The Bloom filter keeps the entry, which only costs a false positive; a 64-bit prefix shared by another
+     * stored chunk is dropped too, which only costs storing that chunk again.
+     */
+    @Override
+    public void forget(ChunkFingerprint fingerprint) {
+        if (chunkHashes != null) {
+            chunkHashes.invalidate(fingerprint);
+        }
+        index.remove(fingerprint.prefix());
+    }
+
+    @Override
+    public boolean verifiesOnMatch() {
+        return verifyOnMatch;
+    }
+
+    @Override
+    public ChunkFingerprint fingerprint(byte[] data) {
+        return algorithm.fingerprint(data);
+    }
+
+    @Override
+    public ChunkFingerprint fingerprint(ByteBuffer data) {
+        return algorithm.fingerprint(data);
+    }
+
+    public DedupStats stats() {
+        return new DedupStats(index.size(), bloomFilter.memoryBytes(), bloomFilter.insertions(),
+                bloomFilter.expectedFalsePositiveRate(), bloomNegatives.sum(), bloomFalsePositives.sum());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (bloomPath != null) {
+            bloomFilter.save(bloomPath, index.size());
+        }
+        index.close();
+    }
+
+    private boolean isKnown(ChunkFingerprint fingerprint) {
+        if (chunkHashes != null && chunkHashes.getIfPresent(fingerprint) != null) {
+            return true;
+        }
+        return isIndexed(fingerprint);
+    }
+
+    private boolean isIndexed(ChunkFingerprint fingerprint) {
+        if (!index.contains(fingerprint.prefix())) {
+            return false;
+        }
+        return fingerprint.length() == Long.BYTES || chunkStoreRepository == null || chunkStoreRepository.contains(fingerprint);
+    }
+
+    private static Cache<ChunkFingerprint, Boolean> hotTier(int size) {
+        if (size <= 0) {
+            return null;
+        }
+        return Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterAccess(10, java.util.concurrent.TimeUnit.MINUTES)
+                .recordStats()
+                .build();
     }
 }
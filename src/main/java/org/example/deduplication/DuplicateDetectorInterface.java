@@ -1,7 +1,34 @@
 package org.example.deduplication;
 
+import org.example.model.ChunkFingerprint;
+
+import java.nio.ByteBuffer;
+
 public interface DuplicateDetectorInterface {
     boolean isDuplicate(byte[] chunk);
 
-    long computeXXHash(byte[] data);
+    ClaimResult claim(ChunkFingerprint fingerprint);
+
+    /**
+     * Waits until the pending claim on {@code fingerprint}, if any, is committed or released.
+     */
+    void awaitClaim(ChunkFingerprint fingerprint) throws InterruptedException;
+
+    void commit(ChunkFingerprint fingerprint);
+
+    void release(ChunkFingerprint fingerprint);
+
+    /**
+     * Drops a chunk that was deleted from the store, so the next occurrence is stored again instead of being
+     * referenced.
+     */
+    void forget(ChunkFingerprint fingerprint);
+
+    boolean verifiesOnMatch();
+
+    DedupStats stats();
+
+    ChunkFingerprint fingerprint(byte[] data);
+
+    ChunkFingerprint fingerprint(ByteBuffer data);
 }
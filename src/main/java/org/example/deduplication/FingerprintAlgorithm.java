@@ -0,0 +1,82 @@
+package org.example.deduplication;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import org.example.model.ChunkFingerprint;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Chunk fingerprint algorithms. Hashers are created once: XXHash64 is stateless and shared, MessageDigest is
+ * kept per thread.
+ */
+public enum FingerprintAlgorithm {
+    XXH64(false) {
+        @Override
+        public ChunkFingerprint fingerprint(byte[] data) {
+            return ChunkFingerprint.of(XX_HASH.hash(data, 0, data.length, 0));
+        }
+
+        @Override
+        public ChunkFingerprint fingerprint(ByteBuffer data) {
+            return ChunkFingerprint.of(XX_HASH.hash(data, data.position(), data.remaining(), 0));
+        }
+    },
+    XXH64X2(false) {
+        @Override
+        public ChunkFingerprint fingerprint(byte[] data) {
+            return wide(XX_HASH.hash(data, 0, data.length, 0), XX_HASH.hash(data, 0, data.length, SECOND_SEED));
+        }
+
+        @Override
+        public ChunkFingerprint fingerprint(ByteBuffer data) {
+            return wide(XX_HASH.hash(data, data.position(), data.remaining(), 0),
+                    XX_HASH.hash(data, data.position(), data.remaining(), SECOND_SEED));
+        }
+    },
+    SHA256(true) {
+        @Override
+        public ChunkFingerprint fingerprint(byte[] data) {
+            return new ChunkFingerprint(SHA_256.get().digest(data));
+        }
+
+        @Override
+        public ChunkFingerprint fingerprint(ByteBuffer data) {
+            MessageDigest digest = SHA_256.get();
+            digest.update(data.duplicate());
+            return new ChunkFingerprint(digest.digest());
+        }
+    };
+
+    private static final XXHash64 XX_HASH = XXHashFactory.unsafeInstance().hash64();
+    private static final long SECOND_SEED = 0x9E3779B97F4A7C15L;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    });
+
+    private final boolean cryptographic;
+
+    FingerprintAlgorithm(boolean cryptographic) {
+        this.cryptographic = cryptographic;
+    }
+
+    public abstract ChunkFingerprint fingerprint(byte[] data);
+
+    public abstract ChunkFingerprint fingerprint(ByteBuffer data);
+
+    public boolean isCryptographic() {
+        return cryptographic;
+    }
+
+    private static ChunkFingerprint wide(long high, long low) {
+        ByteBuffer bytes = ByteBuffer.allocate(2 * Long.BYTES);
+        bytes.putLong(high).putLong(low);
+        return new ChunkFingerprint(bytes.array());
+    }
+}
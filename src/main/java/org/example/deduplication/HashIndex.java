@@ -0,0 +1,353 @@
+package org.example.deduplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing set of 64-bit chunk hashes kept off-heap, optionally backed by a memory-mapped file.
+ * Inserts are lock-free CAS on the slot; a read/write lock only excludes lookups while the table grows.
+ * The file header carries a clean-shutdown flag: an index that was not closed properly reports
+ * {@link #needsRebuild()} so the caller can reload it from the chunk store.
+ */
+public class HashIndex implements Closeable {
+    private static final long MAGIC = 0x3158444948434643L;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int ZERO_OFFSET = 24;
+    private static final int CLEAN_OFFSET = 28;
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_SLOTS = 1L << SEGMENT_SHIFT;
+    private static final double MAX_LOAD = 0.7;
+    private static final long EMPTY = 0L;
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicBoolean containsZero = new AtomicBoolean();
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private ByteBuffer[] segments;
+    private long capacity;
+    private boolean needsRebuild;
+
+    private HashIndex(Path path) {
+        this.path = path;
+    }
+
+    public static HashIndex inMemory(long initialCapacity) {
+        HashIndex index = new HashIndex(null);
+        index.capacity = tableCapacity(initialCapacity);
+        index.segments = allocateSegments(index.capacity);
+        return index;
+    }
+
+    public static HashIndex open(Path path, long initialCapacity) throws IOException {
+        HashIndex index = new HashIndex(path);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        boolean existed = Files.exists(path);
+        index.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.header = index.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        index.header.order(ByteOrder.LITTLE_ENDIAN);
+
+        long storedCapacity = index.header.getLong(CAPACITY_OFFSET);
+        boolean valid = existed
+                && index.header.getLong(MAGIC_OFFSET) == MAGIC
+                && index.header.getInt(CLEAN_OFFSET) == 1
+                && Long.bitCount(storedCapacity) == 1
+                && index.channel.size() == HEADER_SIZE + storedCapacity * Long.BYTES;
+
+        if (valid) {
+            index.capacity = storedCapacity;
+            index.segments = index.mapSegments(index.channel, storedCapacity);
+            index.size.set(index.header.getLong(SIZE_OFFSET));
+            index.containsZero.set(index.header.getInt(ZERO_OFFSET) == 1);
+        } else {
+            index.channel.truncate(HEADER_SIZE);
+            index.capacity = tableCapacity(initialCapacity);
+            index.segments = index.mapSegments(index.channel, index.capacity);
+            index.needsRebuild = true;
+        }
+        index.writeHeader(false);
+        return index;
+    }
+
+    public boolean needsRebuild() {
+        return needsRebuild;
+    }
+
+    public boolean contains(long hash) {
+        if (hash == EMPTY) {
+            return containsZero.get();
+        }
+        resizeLock.readLock().lock();
+        try {
+            long mask = capacity - 1;
+            for (long slot = slotOf(hash, mask); ; slot = (slot + 1) & mask) {
+                long current = read(slot);
+                if (current == hash) {
+                    return true;
+                }
+                if (current == EMPTY) {
+                    return false;
+                }
+            }
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    public boolean addIfAbsent(long hash) {
+        if (hash == EMPTY) {
+            return containsZero.compareAndSet(false, true);
+        }
+        boolean inserted = false;
+        resizeLock.readLock().lock();
+        try {
+            long mask = capacity - 1;
+            long slot = slotOf(hash, mask);
+            while (true) {
+                long current = read(slot);
+                if (current == hash) {
+                    break;
+                }
+                if (current == EMPTY) {
+                    if (compareAndSet(slot, hash)) {
+                        inserted = true;
+                        break;
+                    }
+                    continue;
+                }
+                slot = (slot + 1) & mask;
+            }
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+
+        if (inserted && size.incrementAndGet() > capacity * MAX_LOAD) {
+            grow();
+        }
+        return inserted;
+    }
+
+    /**
+     * Removes {@code hash} with backward-shift deletion, so probe chains stay unbroken without tombstones.
+     * Takes the resize lock exclusively: removals are rare and must not race the lock-free inserts.
+     */
+    public boolean remove(long hash) {
+        if (hash == EMPTY) {
+            return containsZero.compareAndSet(true, false);
+        }
+        resizeLock.writeLock().lock();
+        try {
+            long mask = capacity - 1;
+            long hole = slotOf(hash, mask);
+            while (true) {
+                long current = read(hole);
+                if (current == EMPTY) {
+                    return false;
+                }
+                if (current == hash) {
+                    break;
+                }
+                hole = (hole + 1) & mask;
+            }
+            for (long slot = (hole + 1) & mask; ; slot = (slot + 1) & mask) {
+                long current = read(slot);
+                if (current == EMPTY) {
+                    break;
+                }
+                long home = slotOf(current, mask);
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    write(hole, current);
+                    hole = slot;
+                }
+            }
+            write(hole, EMPTY);
+            size.decrementAndGet();
+            return true;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    public void forEach(LongConsumer consumer) {
+        if (containsZero.get()) {
+            consumer.accept(EMPTY);
+        }
+        resizeLock.readLock().lock();
+        try {
+            for (long slot = 0; slot < capacity; slot++) {
+                long hash = read(slot);
+                if (hash != EMPTY) {
+                    consumer.accept(hash);
+                }
+            }
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    public long size() {
+        return size.get() + (containsZero.get() ? 1 : 0);
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long memoryBytes() {
+        return capacity * Long.BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        resizeLock.writeLock().lock();
+        try {
+            forceSegments();
+            writeHeader(true);
+            channel.close();
+            channel = null;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    private void grow() {
+        resizeLock.writeLock().lock();
+        try {
+            if (size.get() <= capacity * MAX_LOAD) {
+                return;
+            }
+            long newCapacity = capacity << 1;
+            if (path == null) {
+                ByteBuffer[] newSegments = allocateSegments(newCapacity);
+                rehashInto(newSegments, newCapacity);
+                segments = newSegments;
+            } else {
+                Path resized = path.resolveSibling(path.getFileName() + ".resize");
+                try (FileChannel resizedChannel = FileChannel.open(resized, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    ByteBuffer[] newSegments = mapSegments(resizedChannel, newCapacity);
+                    rehashInto(newSegments, newCapacity);
+                    for (ByteBuffer segment : newSegments) {
+                        ((MappedByteBuffer) segment).force();
+                    }
+                }
+                channel.close();
+                Files.move(resized, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                segments = mapSegments(channel, newCapacity);
+            }
+            capacity = newCapacity;
+            if (path != null) {
+                writeHeader(false);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible d'agrandir l'index de déduplication : " + path, e);
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    private void rehashInto(ByteBuffer[] newSegments, long newCapacity) {
+        long newMask = newCapacity - 1;
+        for (long slot = 0; slot < capacity; slot++) {
+            long hash = read(slot);
+            if (hash == EMPTY) {
+                continue;
+            }
+            long target = slotOf(hash, newMask);
+            while ((long) SLOT.get(newSegments[(int) (target >>> SEGMENT_SHIFT)], byteOffset(target)) != EMPTY) {
+                target = (target + 1) & newMask;
+            }
+            SLOT.set(newSegments[(int) (target >>> SEGMENT_SHIFT)], byteOffset(target), hash);
+        }
+    }
+
+    private ByteBuffer[] mapSegments(FileChannel fileChannel, long slots) throws IOException {
+        ByteBuffer[] mapped = new ByteBuffer[segmentCount(slots)];
+        for (int i = 0; i < mapped.length; i++) {
+            long segmentSlots = Math.min(SEGMENT_SLOTS, slots - i * SEGMENT_SLOTS);
+            mapped[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + i * SEGMENT_SLOTS * Long.BYTES, segmentSlots * Long.BYTES);
+        }
+        return mapped;
+    }
+
+    private static ByteBuffer[] allocateSegments(long slots) {
+        ByteBuffer[] allocated = new ByteBuffer[segmentCount(slots)];
+        for (int i = 0; i < allocated.length; i++) {
+            allocated[i] = ByteBuffer.allocateDirect((int) (Math.min(SEGMENT_SLOTS, slots - i * SEGMENT_SLOTS) * Long.BYTES));
+        }
+        return allocated;
+    }
+
+    private void forceSegments() {
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    private void writeHeader(boolean clean) throws IOException {
+        header.putLong(MAGIC_OFFSET, MAGIC);
+        header.putLong(CAPACITY_OFFSET, capacity);
+        header.putLong(SIZE_OFFSET, size.get());
+        header.putInt(ZERO_OFFSET, containsZero.get() ? 1 : 0);
+        header.putInt(CLEAN_OFFSET, clean ? 1 : 0);
+        header.force();
+    }
+
+    private long read(long slot) {
+        return (long) SLOT.getVolatile(segments[(int) (slot >>> SEGMENT_SHIFT)], byteOffset(slot));
+    }
+
+    private void write(long slot, long hash) {
+        SLOT.setVolatile(segments[(int) (slot >>> SEGMENT_SHIFT)], byteOffset(slot), hash);
+    }
+
+    private boolean compareAndSet(long slot, long hash) {
+        return SLOT.compareAndSet(segments[(int) (slot >>> SEGMENT_SHIFT)], byteOffset(slot), EMPTY, hash);
+    }
+
+    private static int byteOffset(long slot) {
+        return (int) (slot & (SEGMENT_SLOTS - 1)) * Long.BYTES;
+    }
+
+    private static long slotOf(long hash, long mask) {
+        long mixed = hash * 0x9E3779B97F4A7C15L;
+        return (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private static int segmentCount(long slots) {
+        return (int) ((slots + SEGMENT_SLOTS - 1) >>> SEGMENT_SHIFT);
+    }
+
+    private static long tableCapacity(long expectedEntries) {
+        long required = Math.max(1024, (long) Math.ceil(expectedEntries / MAX_LOAD));
+        return Long.highestOneBit(required - 1) << 1;
+    }
+}
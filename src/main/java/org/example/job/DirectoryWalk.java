@@ -0,0 +1,65 @@
+package org.example.job;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * Walks one directory and forks a task per subdirectory, so wide trees are listed in parallel. Symbolic
+ * links are not followed. An unreadable subdirectory is recorded on the job and skipped; an unreadable
+ * root fails the walk.
+ */
+final class DirectoryWalk extends RecursiveAction {
+    private static final Logger logger = Logger.getLogger(DirectoryWalk.class.getName());
+
+    private final IngestJob job;
+    private final Path directory;
+
+    DirectoryWalk(IngestJob job, Path directory) {
+        this.job = job;
+        this.directory = directory;
+    }
+
+    @Override
+    protected void compute() {
+        if (job.isCancelled()) {
+            return;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+            if (attributes.isRegularFile()) {
+                job.discovered(directory, attributes.size());
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<DirectoryWalk> subdirectories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attributes.isDirectory()) {
+                    subdirectories.add(new DirectoryWalk(job, entry));
+                } else if (attributes.isRegularFile() && job.accepts(entry)) {
+                    job.discovered(entry, attributes.size());
+                }
+            }
+        } catch (IOException e) {
+            if (directory.equals(job.root())) {
+                throw new UncheckedIOException(e);
+            }
+            logger.warning("⚠️ Répertoire ignoré " + directory + " : " + e.getMessage());
+            job.error("Répertoire ignoré " + directory + " : " + e.getMessage());
+        }
+        invokeAll(subdirectories);
+    }
+}
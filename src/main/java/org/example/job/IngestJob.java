@@ -0,0 +1,144 @@
+package org.example.job;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live state of one job. Walkers feed {@link #pending}, the dispatcher drains it, and ingest workers report
+ * back through {@link #fileDone} and {@link #fileFailed}; every counter is safe to read while they run.
+ */
+final class IngestJob {
+    private static final Comparator<PendingFile> DISCOVERY_ORDER = Comparator.comparingLong(file -> file.sequence);
+    private static final Comparator<PendingFile> SMALLEST_FIRST =
+            Comparator.<PendingFile>comparingLong(file -> file.size).thenComparing(DISCOVERY_ORDER);
+
+    static final class PendingFile {
+        private final Path path;
+        private final long size;
+        private final long sequence;
+
+        private PendingFile(Path path, long size, long sequence) {
+            this.path = path;
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        long size() {
+            return size;
+        }
+    }
+
+    private final String id;
+    private final String source;
+    private final Path root;
+    private final PathMatcher matcher;
+    private final Map<String, Long> alreadyDone;
+    private final PriorityBlockingQueue<PendingFile> pending;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong filesTotal = new AtomicLong();
+    private final AtomicLong bytesTotal = new AtomicLong();
+    private final AtomicLong filesDone = new AtomicLong();
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final long resumedBytes;
+    private final long startedNanos = System.nanoTime();
+    private volatile boolean scanning = true;
+    private volatile boolean cancelled;
+    private volatile JobStatus status = JobStatus.RUNNING;
+    private volatile String lastError;
+
+    /**
+     * @param matcher     glob the files must match, or null to take every regular file under {@code root}
+     * @param alreadyDone files completed before a restart, with their sizes; they are counted but not queued
+     */
+    IngestJob(String id, String source, Path root, PathMatcher matcher, Map<String, Long> alreadyDone,
+              boolean smallFilesFirst) {
+        this.id = id;
+        this.source = source;
+        this.root = root;
+        this.matcher = matcher;
+        this.alreadyDone = alreadyDone;
+        this.pending = new PriorityBlockingQueue<>(64, smallFilesFirst ? SMALLEST_FIRST : DISCOVERY_ORDER);
+        this.resumedBytes = alreadyDone.values().stream().mapToLong(Long::longValue).sum();
+        this.filesDone.set(alreadyDone.size());
+        this.bytesDone.set(resumedBytes);
+    }
+
+    String id() {
+        return id;
+    }
+
+    Path root() {
+        return root;
+    }
+
+    boolean accepts(Path file) {
+        return matcher == null || matcher.matches(file);
+    }
+
+    void discovered(Path file, long size) {
+        filesTotal.incrementAndGet();
+        bytesTotal.addAndGet(size);
+        if (!alreadyDone.containsKey(file.toString())) {
+            pending.add(new PendingFile(file, size, sequence.getAndIncrement()));
+        }
+    }
+
+    PriorityBlockingQueue<PendingFile> pending() {
+        return pending;
+    }
+
+    void scanFinished() {
+        scanning = false;
+    }
+
+    void fileDone(PendingFile file) {
+        filesDone.incrementAndGet();
+        bytesDone.addAndGet(file.size());
+    }
+
+    void fileFailed(String error) {
+        filesFailed.incrementAndGet();
+        lastError = error;
+    }
+
+    void error(String error) {
+        lastError = error;
+    }
+
+    boolean cancel() {
+        if (status.isFinal()) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void finish(JobStatus status) {
+        this.scanning = false;
+        this.status = status;
+    }
+
+    JobProgress progress() {
+        long done = bytesDone.get();
+        long total = bytesTotal.get();
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        double rate = seconds > 0 ? (done - resumedBytes) / seconds : 0;
+        Long eta = scanning || cancelled || rate <= 0 || status.isFinal() ? null : (long) Math.ceil(Math.max(0, total - done) / rate);
+        JobStatus reported = cancelled && !status.isFinal() ? JobStatus.CANCELLED : status;
+        return new JobProgress(id, source, reported, scanning, filesTotal.get(), filesDone.get(), filesFailed.get(),
+                total, done, rate, eta, lastError);
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.job;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.JobProperties;
+import org.example.metrics.PipelineMetrics;
+import org.example.repository.IngestJobRepository;
+import org.example.service.ParallelIngestService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Background ingestion of a file, a directory tree or a glob. Each job walks its source on a shared
+ * fork/join pool while a dispatcher thread hands the files, smallest first by default, to the bounded
+ * {@link ParallelIngestService}. Finished files are checkpointed, so jobs still running at shutdown resume
+ * on the next start without re-submitting them.
+ */
+@Service
+public class IngestJobService {
+    private static final Logger logger = Logger.getLogger(IngestJobService.class.getName());
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final ParallelIngestService ingestService;
+    private final IngestJobRepository repository;
+    private final ForkJoinPool walkers;
+    private final ExecutorService dispatchers;
+    private final boolean smallFilesFirst;
+    private final Map<String, IngestJob> running = new ConcurrentHashMap<>();
+
+    public IngestJobService(ParallelIngestService ingestService, IngestJobRepository repository, JobProperties properties,
+                            PipelineMetrics metrics) {
+        this.ingestService = ingestService;
+        this.repository = repository;
+        this.walkers = new ForkJoinPool(properties.getWalkerThreads());
+        this.smallFilesFirst = properties.isSmallFilesFirst();
+        AtomicInteger counter = new AtomicInteger();
+        this.dispatchers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ingest-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        metrics.gauge("jobs.running", running::size);
+        metrics.gauge("jobs.pending-files", () -> running.values().stream().mapToLong(job -> job.pending().size()).sum());
+    }
+
+    /**
+     * Starts a job over {@code source}: a file, a directory walked recursively, or an absolute glob such as
+     * {@code /data/**}{@code /*.log}.
+     */
+    public JobProgress submit(String source) {
+        IngestJob job = newJob(UUID.randomUUID().toString(), source, Map.of());
+        repository.create(job.id(), source);
+        start(job);
+        logger.info("🚀 Job " + job.id() + " démarré pour " + source);
+        return job.progress();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (JobProgress interrupted : repository.findByStatus(JobStatus.RUNNING)) {
+            Map<String, Long> done = new HashMap<>();
+            repository.forEachDoneFile(interrupted.getId(), done::put);
+            try {
+                start(newJob(interrupted.getId(), interrupted.getSource(), done));
+                logger.info("🔁 Job " + interrupted.getId() + " repris : " + done.size() + " fichiers déjà traités");
+            } catch (IllegalArgumentException e) {
+                logger.warning("⚠️ Job " + interrupted.getId() + " abandonné : " + e.getMessage());
+                repository.finish(new JobProgress(interrupted.getId(), interrupted.getSource(), JobStatus.FAILED, false,
+                        0, done.size(), 0, 0, 0, 0, null, e.getMessage()));
+            }
+        }
+    }
+
+    public Optional<JobProgress> progress(String id) {
+        IngestJob job = running.get(id);
+        return job != null ? Optional.of(job.progress()) : Optional.ofNullable(repository.find(id));
+    }
+
+    public List<JobProgress> runningJobs() {
+        List<JobProgress> jobs = new ArrayList<>();
+        running.values().forEach(job -> jobs.add(job.progress()));
+        return jobs;
+    }
+
+    /**
+     * Stops scheduling new files; those already handed to the ingest workers complete. Returns false when the
+     * job is not running.
+     */
+    public boolean cancel(String id) {
+        IngestJob job = running.get(id);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        repository.updateStatus(id, JobStatus.CANCELLED);
+        logger.info("🛑 Job " + id + " annulé");
+        return true;
+    }
+
+    private IngestJob newJob(String id, String source, Map<String, Long> done) {
+        Path root;
+        PathMatcher matcher = null;
+        int glob = indexOfGlob(source);
+        if (glob < 0) {
+            root = Paths.get(source).toAbsolutePath().normalize();
+        } else {
+            int separator = source.lastIndexOf('/', glob);
+            if (separator < 0 || !Paths.get(source.substring(0, separator + 1)).isAbsolute()) {
+                throw new IllegalArgumentException("Le glob doit être absolu : " + source);
+            }
+            root = Paths.get(source.substring(0, separator + 1));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + source);
+        }
+        if (!Files.exists(root)) {
+            throw new IllegalArgumentException("Source introuvable : " + source);
+        }
+        return new IngestJob(id, source, root, matcher, done, smallFilesFirst);
+    }
+
+    private static int indexOfGlob(String source) {
+        for (int i = 0; i < source.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(source.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void start(IngestJob job) {
+        running.put(job.id(), job);
+        try {
+            dispatchers.execute(() -> dispatch(job));
+        } catch (RejectedExecutionException e) {
+            running.remove(job.id());
+            throw e;
+        }
+    }
+
+    private void dispatch(IngestJob job) {
+        ForkJoinTask<Void> walk = walkers.submit(new DirectoryWalk(job, job.root()));
+        Phaser inFlight = new Phaser(1);
+        try {
+            while (!job.isCancelled()) {
+                if (walk.isDone()) {
+                    job.scanFinished();
+                }
+                IngestJob.PendingFile next = job.pending().poll(100, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    if (walk.isDone() && job.pending().isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                inFlight.register();
+                ingestService.submit(next.path().toString()).whenComplete((chunks, error) -> {
+                    try {
+                        if (error == null) {
+                            repository.markFileDone(job.id(), next.path().toString(), next.size());
+                            job.fileDone(next);
+                        } else {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            logger.warning("⚠️ Job " + job.id() + " : échec pour " + next.path() + " : " + cause.getMessage());
+                            job.fileFailed(next.path() + " : " + cause.getMessage());
+                        }
+                    } catch (RuntimeException e) {
+                        job.fileFailed(next.path() + " : " + e.getMessage());
+                    } finally {
+                        inFlight.arriveAndDeregister();
+                    }
+                });
+            }
+            inFlight.awaitAdvanceInterruptibly(inFlight.arrive());
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // shutting down: the job stays RUNNING in its checkpoint and resumes on the next start
+            walk.cancel(true);
+            running.remove(job.id());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        JobStatus status = JobStatus.COMPLETED;
+        if (job.isCancelled()) {
+            walk.cancel(true);
+            status = JobStatus.CANCELLED;
+        } else {
+            try {
+                walk.get();
+            } catch (ExecutionException | InterruptedException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                job.error("Parcours de " + job.root() + " interrompu : " + cause.getMessage());
+                status = JobStatus.FAILED;
+            }
+        }
+        job.finish(status);
+        JobProgress progress = job.progress();
+        repository.finish(progress);
+        running.remove(job.id());
+        logger.info("✅ Job " + job.id() + " terminé (" + status + ") : " + progress.getFilesDone() + " fichiers, "
+                + progress.getFilesFailed() + " échecs");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchers.shutdownNow();
+        walkers.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.job;
+
+public class JobProgress {
+    private final String id;
+    private final String source;
+    private final JobStatus status;
+    private final boolean scanning;
+    private final long filesTotal;
+    private final long filesDone;
+    private final long filesFailed;
+    private final long bytesTotal;
+    private final long bytesDone;
+    private final double bytesPerSecond;
+    private final Long etaSeconds;
+    private final String lastError;
+
+    public JobProgress(String id, String source, JobStatus status, boolean scanning, long filesTotal, long filesDone,
+                       long filesFailed, long bytesTotal, long bytesDone, double bytesPerSecond, Long etaSeconds,
+                       String lastError) {
+        this.id = id;
+        this.source = source;
+        this.status = status;
+        this.scanning = scanning;
+        this.filesTotal = filesTotal;
+        this.filesDone = filesDone;
+        this.filesFailed = filesFailed;
+        this.bytesTotal = bytesTotal;
+        this.bytesDone = bytesDone;
+        this.bytesPerSecond = bytesPerSecond;
+        this.etaSeconds = etaSeconds;
+        this.lastError = lastError;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * True while the source is still being walked, so the totals are still growing.
+     */
+    public boolean isScanning() {
+        return scanning;
+    }
+
+    public long getFilesTotal() {
+        return filesTotal;
+    }
+
+    public long getFilesDone() {
+        return filesDone;
+    }
+
+    public long getFilesFailed() {
+        return filesFailed;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    /**
+     * Throughput since the job was started or resumed in this process.
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Remaining bytes at the current throughput; null while scanning or before any progress.
+     */
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
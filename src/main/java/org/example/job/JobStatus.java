@@ -0,0 +1,9 @@
+package org.example.job;
+
+public enum JobStatus {
+    RUNNING, COMPLETED, FAILED, CANCELLED;
+
+    public boolean isFinal() {
+        return this != RUNNING;
+    }
+}
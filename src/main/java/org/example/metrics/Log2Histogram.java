@@ -0,0 +1,81 @@
+package org.example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with one striped counter per power of two; bucket {@code i} holds values in
+ * (2^(i-1), 2^i]. Percentiles are therefore upper bounds, accurate to a factor of two.
+ */
+public final class Log2Histogram {
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+
+    public Log2Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        buckets[bucket(value)].increment();
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, or 0 when nothing was recorded.
+     */
+    public long percentile(double percent) {
+        long[] counts = counts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long rank = (long) Math.ceil(total * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Non-empty buckets keyed by their upper bound, in ascending order.
+     */
+    public Map<Long, Long> buckets() {
+        long[] counts = counts();
+        Map<Long, Long> nonEmpty = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                nonEmpty.put(upperBound(i), counts[i]);
+            }
+        }
+        return nonEmpty;
+    }
+
+    private long[] counts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    private static int bucket(long value) {
+        return value <= 1 ? 0 : Math.min(Long.SIZE - 1, Long.SIZE - Long.numberOfLeadingZeros(value - 1));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == Long.SIZE - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.metrics;
+
+import java.util.Map;
+
+public class MetricsSnapshot {
+    private final Map<String, StageSnapshot> stages;
+    private final long chunks;
+    private final long bytesIn;
+    private final long duplicateChunks;
+    private final long duplicateBytes;
+    private final long bytesRestored;
+    private final Map<String, CodecSnapshot> codecs;
+    private final Map<Long, Long> chunkSizeHistogram;
+    private final Map<String, Long> gauges;
+    private final Map<String, CacheSnapshot> caches;
+
+    public MetricsSnapshot(Map<String, StageSnapshot> stages, long chunks, long bytesIn, long duplicateChunks,
+                           long duplicateBytes, long bytesRestored, Map<String, CodecSnapshot> codecs,
+                           Map<Long, Long> chunkSizeHistogram, Map<String, Long> gauges, Map<String, CacheSnapshot> caches) {
+        this.stages = stages;
+        this.chunks = chunks;
+        this.bytesIn = bytesIn;
+        this.duplicateChunks = duplicateChunks;
+        this.duplicateBytes = duplicateBytes;
+        this.bytesRestored = bytesRestored;
+        this.codecs = codecs;
+        this.chunkSizeHistogram = chunkSizeHistogram;
+        this.gauges = gauges;
+        this.caches = caches;
+    }
+
+    public Map<String, StageSnapshot> getStages() {
+        return stages;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesStored() {
+        return codecs.values().stream().mapToLong(CodecSnapshot::getStoredBytes).sum();
+    }
+
+    public long getBytesRestored() {
+        return bytesRestored;
+    }
+
+    public long getDuplicateChunks() {
+        return duplicateChunks;
+    }
+
+    public long getDuplicateBytes() {
+        return duplicateBytes;
+    }
+
+    public double getDedupHitRatio() {
+        return chunks == 0 ? 0 : (double) duplicateChunks / chunks;
+    }
+
+    public Map<String, CodecSnapshot> getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Chunk counts keyed by the upper bound of each power-of-two size bucket.
+     */
+    public Map<Long, Long> getChunkSizeHistogram() {
+        return chunkSizeHistogram;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, CacheSnapshot> getCaches() {
+        return caches;
+    }
+
+    public static class CodecSnapshot {
+        private final long chunks;
+        private final long originalBytes;
+        private final long storedBytes;
+
+        public CodecSnapshot(long chunks, long originalBytes, long storedBytes) {
+            this.chunks = chunks;
+            this.originalBytes = originalBytes;
+            this.storedBytes = storedBytes;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        public long getOriginalBytes() {
+            return originalBytes;
+        }
+
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+
+        public double getRatio() {
+            return storedBytes == 0 ? 0 : (double) originalBytes / storedBytes;
+        }
+    }
+
+    public static class CacheSnapshot {
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        public CacheSnapshot(long size, long hits, long misses, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.compression.Codec;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics for ingest and restore. Hot paths only touch striped counters; queue depths and
+ * cache statistics are gauges registered by their owners and read when a snapshot is taken.
+ */
+@Component
+public class PipelineMetrics {
+    public enum Stage {
+        READ, CHUNK, HASH, DEDUP_LOOKUP, RESEMBLANCE, COMPRESS, PERSIST, DECOMPRESS, WRITE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private static final int CODECS = Codec.values().length;
+
+    private final Map<Stage, StageTimer> timers = new EnumMap<>(Stage.class);
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder duplicateChunks = new LongAdder();
+    private final LongAdder duplicateBytes = new LongAdder();
+    private final LongAdder bytesRestored = new LongAdder();
+    private final LongAdder[] codecChunks = adders(CODECS);
+    private final LongAdder[] codecOriginalBytes = adders(CODECS);
+    private final LongAdder[] codecStoredBytes = adders(CODECS);
+    private final Log2Histogram chunkSizes = new Log2Histogram();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, Cache<?, ?>> caches = new ConcurrentSkipListMap<>();
+
+    public PipelineMetrics() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, new StageTimer());
+        }
+    }
+
+    public StageTimer timer(Stage stage) {
+        return timers.get(stage);
+    }
+
+    public void recordChunk(int length, boolean duplicate) {
+        chunks.increment();
+        bytesIn.add(length);
+        chunkSizes.record(length);
+        if (duplicate) {
+            duplicateChunks.increment();
+            duplicateBytes.add(length);
+        }
+    }
+
+    /**
+     * Records a newly stored chunk; {@code codecId} is the first byte of the stored form.
+     */
+    public void recordStored(byte codecId, int originalLength, int storedLength) {
+        if (codecId >= 0 && codecId < CODECS) {
+            codecChunks[codecId].increment();
+            codecOriginalBytes[codecId].add(originalLength);
+            codecStoredBytes[codecId].add(storedLength);
+        }
+    }
+
+    public void recordRestored(long length) {
+        bytesRestored.add(length);
+    }
+
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Exposes a cache's statistics; the cache must be built with {@code recordStats()}.
+     */
+    public void cache(String name, Cache<?, ?> cache) {
+        caches.put(name, cache);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, StageSnapshot> stages = new LinkedHashMap<>();
+        timers.forEach((stage, timer) -> stages.put(stage.label(), timer.snapshot()));
+
+        Map<String, MetricsSnapshot.CodecSnapshot> codecs = new LinkedHashMap<>();
+        for (Codec codec : Codec.values()) {
+            long count = codecChunks[codec.id()].sum();
+            if (count > 0) {
+                codecs.put(codec.name().toLowerCase(Locale.ROOT), new MetricsSnapshot.CodecSnapshot(count,
+                        codecOriginalBytes[codec.id()].sum(), codecStoredBytes[codec.id()].sum()));
+            }
+        }
+
+        Map<String, Long> gaugeValues = new LinkedHashMap<>();
+        gauges.forEach((name, value) -> gaugeValues.put(name, value.getAsLong()));
+
+        Map<String, MetricsSnapshot.CacheSnapshot> cacheStats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            CacheStats stats = cache.stats();
+            cacheStats.put(name, new MetricsSnapshot.CacheSnapshot(cache.estimatedSize(), stats.hitCount(),
+                    stats.missCount(), stats.evictionCount()));
+        });
+
+        return new MetricsSnapshot(stages, chunks.sum(), bytesIn.sum(), duplicateChunks.sum(), duplicateBytes.sum(),
+                bytesRestored.sum(), codecs, chunkSizes.buckets(), gaugeValues, cacheStats);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+public class StageSnapshot {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+
+    public StageSnapshot(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    public double getMeanMicros() {
+        return count == 0 ? 0 : totalNanos / 1e3 / count;
+    }
+
+    public double getMaxMicros() {
+        return maxNanos / 1e3;
+    }
+
+    /**
+     * Upper bound of the median, to a factor of two.
+     */
+    public double getP50Micros() {
+        return p50Nanos / 1e3;
+    }
+
+    /**
+     * Upper bound of the 99th percentile, to a factor of two.
+     */
+    public double getP99Micros() {
+        return p99Nanos / 1e3;
+    }
+}
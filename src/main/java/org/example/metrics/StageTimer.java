@@ -0,0 +1,34 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative latency of one pipeline stage. Recording is two striped additions and a histogram increment,
+ * cheap enough to call once per chunk from every worker.
+ */
+public final class StageTimer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final Log2Histogram latencies = new Log2Histogram();
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        latencies.record(nanos);
+    }
+
+    public StageSnapshot snapshot() {
+        return new StageSnapshot(count.sum(), totalNanos.sum(), maxNanos.get(),
+                latencies.percentile(50), latencies.percentile(99));
+    }
+}
@@ -3,40 +3,47 @@ package org.example.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "chunks")
+@Table(name = "file_manifest")
 public class Chunk {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String hash;
+    @Convert(converter = ChunkFingerprintConverter.class)
+    @Column(name = "chunk_hash", nullable = false)
+    private ChunkFingerprint hash;
 
     @Column(nullable = false)
     private String filePath;
 
+    // set while the manifest being ingested is not committed yet
+    @Column(nullable = false)
+    private boolean staged;
+
     @Column(nullable = false)
     private int orderIndex;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(nullable = false, columnDefinition = "BLOB")
-    private byte[] data;
+    @Column(name = "chunk_offset", nullable = false)
+    private long offset;
+
+    @Column(nullable = false)
+    private int length;
 
     public Chunk() {}
 
-    public Chunk(String hash, String filePath, int orderIndex, byte[] data) {
+    public Chunk(ChunkFingerprint hash, String filePath, int orderIndex, long offset, int length) {
         this.hash = hash;
         this.filePath = filePath;
         this.orderIndex = orderIndex;
-        this.data = data;
+        this.offset = offset;
+        this.length = length;
     }
 
     public Long getId() {
         return id;
     }
 
-    public String getHash() {
+    public ChunkFingerprint getHash() {
         return hash;
     }
 
@@ -44,11 +51,19 @@ public class Chunk {
         return filePath;
     }
 
+    public boolean isStaged() {
+        return staged;
+    }
+
     public int getOrderIndex() {
         return orderIndex;
     }
 
-    public byte[] getData() {
-        return data;
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+public final class ChunkFingerprint {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final byte[] bytes;
+    private final long prefix;
+
+    public ChunkFingerprint(byte[] bytes) {
+        if (bytes.length < Long.BYTES) {
+            throw new IllegalArgumentException("Fingerprint trop court : " + bytes.length + " octets");
+        }
+        this.bytes = bytes;
+        this.prefix = (long) LONG_VIEW.get(bytes, 0);
+    }
+
+    public static ChunkFingerprint of(long value) {
+        byte[] bytes = new byte[Long.BYTES];
+        LONG_VIEW.set(bytes, 0, value);
+        return new ChunkFingerprint(bytes);
+    }
+
+    public static ChunkFingerprint fromHex(String hex) {
+        return new ChunkFingerprint(HEX.parseHex(hex));
+    }
+
+    public byte[] toBytes() {
+        return bytes;
+    }
+
+    public long prefix() {
+        return prefix;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof ChunkFingerprint fingerprint && Arrays.equals(bytes, fingerprint.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(prefix);
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return HEX.formatHex(bytes);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class ChunkFingerprintConverter implements AttributeConverter<ChunkFingerprint, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(ChunkFingerprint fingerprint) {
+        return fingerprint == null ? null : fingerprint.toBytes();
+    }
+
+    @Override
+    public ChunkFingerprint convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : new ChunkFingerprint(bytes);
+    }
+}
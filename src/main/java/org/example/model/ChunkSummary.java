@@ -0,0 +1,61 @@
+package org.example.model;
+
+import org.example.compression.Codec;
+
+/**
+ * Manifest entry metadata for listings; never carries the chunk payload.
+ */
+public class ChunkSummary {
+    private final long cursor;
+    private final ChunkFingerprint hash;
+    private final String filePath;
+    private final int orderIndex;
+    private final long offset;
+    private final int length;
+    private final Integer compressedSize;
+    private final Codec codec;
+
+    public ChunkSummary(long cursor, ChunkFingerprint hash, String filePath, int orderIndex, long offset, int length,
+                        Integer compressedSize, Codec codec) {
+        this.cursor = cursor;
+        this.hash = hash;
+        this.filePath = filePath;
+        this.orderIndex = orderIndex;
+        this.offset = offset;
+        this.length = length;
+        this.compressedSize = compressedSize;
+        this.codec = codec;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public ChunkFingerprint getHash() {
+        return hash;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public int getOrderIndex() {
+        return orderIndex;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public Integer getCompressedSize() {
+        return compressedSize;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.model;
+
+public class FileVersion {
+    private final String filePath;
+    private final long size;
+    private final long modifiedAt;
+    private final int version;
+
+    public FileVersion(String filePath, long size, long modifiedAt, int version) {
+        this.filePath = filePath;
+        this.size = size;
+        this.modifiedAt = modifiedAt;
+        this.version = version;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean matches(long size, long modifiedAt) {
+        return this.size == size && this.modifiedAt == modifiedAt;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.model;
+
+public class SimilarChunk {
+    private final ChunkFingerprint hash;
+    private final int depth;
+
+    public SimilarChunk(ChunkFingerprint hash, int depth) {
+        this.hash = hash;
+        this.depth = depth;
+    }
+
+    public ChunkFingerprint getHash() {
+        return hash;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.model;
+
+public class StoredChunk {
+    private final ChunkFingerprint hash;
+    private final byte[] data;
+    private final int originalSize;
+    private final ChunkFingerprint baseHash;
+    private final int deltaDepth;
+    private final long[] superFeatures;
+
+    public StoredChunk(ChunkFingerprint hash, byte[] data, int originalSize) {
+        this(hash, data, originalSize, null, 0, null);
+    }
+
+    public StoredChunk(ChunkFingerprint hash, byte[] data, int originalSize, ChunkFingerprint baseHash, int deltaDepth,
+                       long[] superFeatures) {
+        this.hash = hash;
+        this.data = data;
+        this.originalSize = originalSize;
+        this.baseHash = baseHash;
+        this.deltaDepth = deltaDepth;
+        this.superFeatures = superFeatures;
+    }
+
+    public ChunkFingerprint getHash() {
+        return hash;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * The chunk this one is a delta against, or null when it is stored in full.
+     */
+    public ChunkFingerprint getBaseHash() {
+        return baseHash;
+    }
+
+    public int getDeltaDepth() {
+        return deltaDepth;
+    }
+
+    public long[] getSuperFeatures() {
+        return superFeatures;
+    }
+}
@@ -1,51 +1,95 @@
 package org.example.reconstruction;
 
-import com.github.luben.zstd.Zstd;
-import org.example.model.Chunk;
+import jakarta.annotation.PreDestroy;
+import org.example.compression.CompressionServiceInterface;
+import org.example.compression.DirectBufferPool;
+import org.example.config.ReconstructProperties;
+import org.example.metrics.PipelineMetrics;
+import org.example.metrics.StageTimer;
+import org.example.model.FileVersion;
 import org.example.repository.ChunkRepository;
+import org.example.repository.ChunkStoreRepository;
+import org.example.similarity.ResemblanceDetector;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
+/**
+ * Restores files by streaming the manifest through a cursor. Chunks are decompressed ahead on a worker pool,
+ * at most {@code windowSize} at a time, and written back in order with gathering writes, so memory stays
+ * bounded by the window whatever the file size.
+ */
 @Service
 public class FileReconstructor {
     private static final Logger logger = Logger.getLogger(FileReconstructor.class.getName());
     private static final String OUTPUT_DIR = "reconstructed_files/";
 
     private final ChunkRepository chunkRepository;
+    private final ChunkStoreRepository chunkStoreRepository;
+    private final CompressionServiceInterface compressor;
+    private final ResemblanceDetector resemblance;
+    private final ForkJoinPool decoders;
+    private final DirectBufferPool buffers;
+    private final PipelineMetrics metrics;
+    private final StageTimer decompressTimer;
+    private final StageTimer writeTimer;
+    private final int windowSize;
+    private final int gatherSize;
 
-    public FileReconstructor(ChunkRepository chunkRepository) {
+    public FileReconstructor(ChunkRepository chunkRepository, ChunkStoreRepository chunkStoreRepository,
+                             CompressionServiceInterface compressor, ResemblanceDetector resemblance,
+                             ReconstructProperties properties, PipelineMetrics metrics) {
         this.chunkRepository = chunkRepository;
+        this.chunkStoreRepository = chunkStoreRepository;
+        this.compressor = compressor;
+        this.resemblance = resemblance;
+        this.decoders = new ForkJoinPool(properties.getThreads());
+        this.windowSize = properties.getWindowSize();
+        this.gatherSize = properties.getGatherSize();
+        this.buffers = new DirectBufferPool(windowSize + gatherSize);
+        this.metrics = metrics;
+        this.decompressTimer = metrics.timer(PipelineMetrics.Stage.DECOMPRESS);
+        this.writeTimer = metrics.timer(PipelineMetrics.Stage.WRITE);
+        metrics.gauge("restore.decoders.active-threads", decoders::getActiveThreadCount);
+        metrics.gauge("restore.decoders.queued-tasks", decoders::getQueuedSubmissionCount);
     }
 
     @Transactional
     public String reconstructFile(String filePath) {
         try {
-            List<Chunk> chunks = chunkRepository.findByFilePathOrderByOrderIndex(filePath);
-
-            if (chunks.isEmpty()) {
+            if (!chunkRepository.existsByFilePath(filePath)) {
                 logger.warning("⚠️ Aucun chunk trouvé pour " + filePath);
                 return "Erreur : Aucun chunk trouvé.";
             }
 
-            String outputFileName = OUTPUT_DIR + Paths.get(filePath).getFileName();
-            Files.createDirectories(Paths.get(OUTPUT_DIR));
+            Path output = Paths.get(OUTPUT_DIR).resolve(Paths.get(filePath).getFileName());
+            Files.createDirectories(output.getParent());
 
-            try (FileOutputStream fos = new FileOutputStream(outputFileName)) {
-                for (Chunk chunk : chunks) {
-                    byte[] decompressedData = decompressData(chunk.getData());
-                    fos.write(decompressedData);
+            long length = chunkStoreRepository.fileLength(filePath);
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (length > 0) {
+                    channel.write(ByteBuffer.allocate(1), length - 1);
                 }
+                restore(filePath, channel);
             }
 
-            logger.info("✅ Reconstruction terminée : " + outputFileName);
-            return "Fichier reconstruit avec succès : " + outputFileName;
+            logger.info("✅ Reconstruction terminée : " + output);
+            return "Fichier reconstruit avec succès : " + OUTPUT_DIR + output.getFileName();
 
         } catch (IOException e) {
             logger.severe("❌ Erreur lors de la reconstruction : " + e.getMessage());
@@ -53,8 +97,165 @@ public class FileReconstructor {
         }
     }
 
-    private byte[] decompressData(byte[] compressedData) {
-        long decompressedSize = Zstd.decompressedSize(compressedData);
-        return Zstd.decompress(compressedData, (int) decompressedSize);
+    /**
+     * Writes the original bytes of {@code filePath} to {@code channel} in order.
+     */
+    public void restore(String filePath, WritableByteChannel channel) throws IOException {
+        OrderedWriter writer = new OrderedWriter(channel);
+        try {
+            chunkStoreRepository.forEachFileChunk(filePath, (hash, data) -> {
+                if (data == null) {
+                    throw new IOException("Chunk manquant dans le store : " + hash);
+                }
+                writer.submit(decoders.submit(() -> decode(data)));
+            });
+            writer.finish();
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * Writes the original bytes in [{@code from}, {@code to}) of version {@code version} of {@code filePath} to
+     * {@code channel}; only the chunks covering the range are decompressed. Fails before writing anything if the
+     * file was re-ingested since {@link #contentVersion} returned that version.
+     */
+    public void restore(String filePath, int version, long from, long to, WritableByteChannel channel) throws IOException {
+        OrderedWriter writer = new OrderedWriter(channel);
+        try {
+            chunkStoreRepository.forEachFileChunk(filePath, version, from, to, (hash, offset, data) -> {
+                if (data == null) {
+                    throw new IOException("Chunk manquant dans le store : " + hash);
+                }
+                writer.submit(decoders.submit(() -> {
+                    ByteBuffer chunk = decode(data);
+                    int end = (int) Math.min(chunk.limit(), to - offset);
+                    return chunk.limit(end).position((int) Math.max(0, from - offset));
+                }));
+            });
+            writer.finish();
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * The version of {@code filePath} to restore, its size being the length of the restored file; null if the file
+     * has no chunks.
+     */
+    public FileVersion contentVersion(String filePath) {
+        return chunkStoreRepository.findContentVersion(filePath);
+    }
+
+    /**
+     * Delta chunks fetch their base from the store on the decoder thread, usually from the base cache.
+     */
+    private ByteBuffer decode(byte[] data) throws IOException {
+        ByteBuffer stored = ByteBuffer.wrap(data);
+        ByteBuffer target = buffers.acquire(compressor.originalLength(stored));
+        try {
+            long start = System.nanoTime();
+            resemblance.decode(stored, target);
+            decompressTimer.recordSince(start);
+            return target.flip();
+        } catch (IOException | RuntimeException e) {
+            buffers.release(target);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decoders.shutdownNow();
+    }
+
+    private final class OrderedWriter {
+        private final WritableByteChannel channel;
+        private final ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+        private final ByteBuffer[] gathered = new ByteBuffer[gatherSize];
+        private int count;
+
+        private OrderedWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void submit(Future<ByteBuffer> chunk) throws IOException {
+            pending.add(chunk);
+            if (pending.size() >= windowSize) {
+                takeNext();
+            }
+        }
+
+        void finish() throws IOException {
+            while (!pending.isEmpty()) {
+                takeNext();
+            }
+            flush();
+        }
+
+        void abort() {
+            for (Future<ByteBuffer> chunk : pending) {
+                if (!chunk.cancel(true) && chunk.isDone()) {
+                    try {
+                        buffers.release(chunk.get());
+                    } catch (InterruptedException | ExecutionException ignored) {
+                        // nothing to release
+                    }
+                }
+            }
+            pending.clear();
+            release();
+        }
+
+        private void takeNext() throws IOException {
+            ByteBuffer chunk;
+            try {
+                chunk = pending.poll().get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Reconstruction interrompue", e);
+            }
+            gathered[count++] = chunk;
+            if (count == gathered.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            long start = System.nanoTime();
+            long length = 0;
+            for (int i = 0; i < count; i++) {
+                length += gathered[i].remaining();
+            }
+            if (channel instanceof GatheringByteChannel gathering) {
+                long remaining = length;
+                while (remaining > 0) {
+                    remaining -= gathering.write(gathered, 0, count);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    while (gathered[i].hasRemaining()) {
+                        channel.write(gathered[i]);
+                    }
+                }
+            }
+            writeTimer.recordSince(start);
+            metrics.recordRestored(length);
+            release();
+        }
+
+        private void release() {
+            for (int i = 0; i < count; i++) {
+                buffers.release(gathered[i]);
+                gathered[i] = null;
+            }
+            count = 0;
+        }
     }
-}
\ No newline at end of file
+}
@@ -11,12 +11,15 @@ import java.util.List;
 @Repository
 public interface ChunkRepository extends JpaRepository<Chunk, Long> {
 
-    @Query("SELECT COUNT(c) > 0 FROM Chunk c WHERE c.filePath = :filePath")
+    @Query("SELECT COUNT(c) > 0 FROM Chunk c WHERE c.filePath = :filePath AND c.staged = false")
     boolean existsByFilePath(@Param("filePath") String filePath);
 
-    @Query("SELECT c FROM Chunk c WHERE c.filePath = :filePath")
+    @Query("SELECT COUNT(c) FROM Chunk c WHERE c.filePath = :filePath AND c.staged = false")
+    long countByFilePath(@Param("filePath") String filePath);
+
+    @Query("SELECT c FROM Chunk c WHERE c.filePath = :filePath AND c.staged = false")
     List<Chunk> findByFilePath(@Param("filePath") String filePath);
 
-    @Query("SELECT c FROM Chunk c WHERE c.filePath = :filePath ORDER BY c.orderIndex ASC")
+    @Query("SELECT c FROM Chunk c WHERE c.filePath = :filePath AND c.staged = false ORDER BY c.orderIndex ASC")
     List<Chunk> findByFilePathOrderByOrderIndex(@Param("filePath") String filePath);
 }
\ No newline at end of file
@@ -0,0 +1,526 @@
+package org.example.repository;
+
+import org.example.compression.Codec;
+import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.ChunkSummary;
+import org.example.model.FileVersion;
+import org.example.model.SimilarChunk;
+import org.example.model.StoredChunk;
+import org.example.storage.ChunkStorageInterface;
+import org.example.storage.PackLocation;
+import org.example.storage.SqliteChunkStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Repository
+public class ChunkStoreRepository {
+    private static final String INSERT_BLOB =
+            "INSERT OR IGNORE INTO chunk_store (hash, data, segment_id, segment_offset, original_size, compressed_size, codec, "
+                    + "base_hash, delta_depth, ref_count) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, (SELECT COUNT(*) FROM file_manifest WHERE chunk_hash = ?))";
+    private static final String INSERT_FEATURE =
+            "INSERT OR IGNORE INTO chunk_feature (feature, chunk_hash) VALUES (?, ?)";
+    private static final String SELECT_SIMILAR =
+            "SELECT f.chunk_hash, s.delta_depth FROM chunk_feature f JOIN chunk_store s ON s.hash = f.chunk_hash "
+                    + "WHERE f.feature IN (?, ?, ?) AND s.delta_depth < ? "
+                    + "GROUP BY f.chunk_hash ORDER BY COUNT(*) DESC, s.delta_depth LIMIT 1";
+    private static final String INSERT_REFERENCE =
+            "INSERT INTO file_manifest (file_path, staged, order_index, chunk_hash, chunk_offset, length) "
+                    + "VALUES (?, 1, ?, ?, ?, ?)";
+    private static final String INCREMENT_REF_COUNT =
+            "UPDATE chunk_store SET ref_count = ref_count + ? WHERE hash = ?";
+    private static final String SELECT_FILE_CHUNKS =
+            "SELECT m.chunk_hash, s.data, s.segment_id, s.segment_offset, s.compressed_size FROM file_manifest m LEFT JOIN chunk_store s ON s.hash = m.chunk_hash "
+                    + "WHERE m.file_path = ? AND m.staged = 0 ORDER BY m.order_index";
+    private static final String SELECT_FILE_RANGE =
+            "SELECT m.chunk_hash, m.chunk_offset, s.data, s.segment_id, s.segment_offset, s.compressed_size "
+                    + "FROM file_manifest m LEFT JOIN chunk_store s ON s.hash = m.chunk_hash "
+                    + "WHERE m.file_path = ? AND m.staged = 0 AND m.chunk_offset < ? AND m.chunk_offset >= COALESCE("
+                    + "(SELECT MAX(chunk_offset) FROM file_manifest "
+                    + "WHERE file_path = ? AND staged = 0 AND chunk_offset <= ?), 0) "
+                    + "ORDER BY m.chunk_offset";
+    private static final String SELECT_SUMMARIES =
+            "SELECT m.id, m.chunk_hash, m.file_path, m.order_index, m.chunk_offset, m.length, s.compressed_size, s.codec "
+                    + "FROM file_manifest m LEFT JOIN chunk_store s ON s.hash = m.chunk_hash ";
+    private static final String SELECT_CHUNK =
+            "SELECT data, segment_id, segment_offset, compressed_size, original_size FROM chunk_store WHERE hash = ?";
+    private static final String RELEASE_FILE_REFERENCES =
+            "UPDATE chunk_store SET ref_count = ref_count - released.count FROM (SELECT chunk_hash, COUNT(*) AS count "
+                    + "FROM file_manifest WHERE file_path = ? AND staged = ? GROUP BY chunk_hash) AS released "
+                    + "WHERE chunk_store.hash = released.chunk_hash";
+    private static final String SELECT_CONTENT_VERSION =
+            "SELECT COALESCE(SUM(m.length), 0), COUNT(*), COALESCE(MAX(v.modified_at), 0), COALESCE(MAX(v.version), 0) "
+                    + "FROM file_manifest m LEFT JOIN file_version v ON v.file_path = m.file_path "
+                    + "WHERE m.file_path = ? AND m.staged = 0";
+    private static final String UPSERT_FILE_VERSION =
+            "INSERT INTO file_version (file_path, size, modified_at, version, ingested_at) VALUES (?, ?, ?, 1, ?) "
+                    + "ON CONFLICT (file_path) DO UPDATE SET size = excluded.size, modified_at = excluded.modified_at, "
+                    + "version = version + 1, ingested_at = excluded.ingested_at";
+    private static final String SELECT_SEGMENT_USAGE =
+            "SELECT segment_id, SUM(CASE WHEN ref_count > 0 THEN compressed_size ELSE 0 END) FROM chunk_store "
+                    + "WHERE segment_id IS NOT NULL GROUP BY segment_id";
+    private static final String RELEASE_DELTA_BASES =
+            "UPDATE chunk_store SET ref_count = ref_count - released.count FROM (SELECT base_hash, COUNT(*) AS count "
+                    + "FROM chunk_store WHERE segment_id = ? AND ref_count <= 0 AND base_hash IS NOT NULL "
+                    + "GROUP BY base_hash) AS released WHERE chunk_store.hash = released.base_hash";
+    private static final String RELOCATE_CHUNK =
+            "UPDATE chunk_store SET segment_id = ?, segment_offset = ? WHERE hash = ? AND segment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChunkStorageInterface storage;
+    // fair, so a waiting compaction holds back new ingests instead of starving behind them
+    private final ReadWriteLock ingestGate = new ReentrantReadWriteLock(true);
+    // payload reads in flight, with the number of segments retired when each started
+    private final Map<Object, Long> payloadReaders = new ConcurrentHashMap<>();
+    private final AtomicLong retiredSegments = new AtomicLong();
+
+    @FunctionalInterface
+    public interface ChunkDataHandler {
+        void handle(ChunkFingerprint hash, byte[] data) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ChunkRangeHandler {
+        void handle(ChunkFingerprint hash, long offset, byte[] data) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface LiveChunkHandler {
+        void handle(ChunkFingerprint hash, long offset, int length) throws IOException;
+    }
+
+    @Autowired
+    public ChunkStoreRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ChunkStorageInterface storage) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.storage = storage;
+    }
+
+    public ChunkStoreRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this(jdbcTemplate, transactionManager, new SqliteChunkStorage());
+    }
+
+    public boolean contains(ChunkFingerprint hash) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chunk_store WHERE hash = ?", Integer.class,
+                (Object) hash.toBytes());
+        return count != null && count > 0;
+    }
+
+    public StoredChunk findChunk(ChunkFingerprint hash) {
+        Object reader = beginPayloadRead();
+        try {
+            List<StoredChunk> chunks = jdbcTemplate.query(SELECT_CHUNK,
+                    (resultSet, row) -> new StoredChunk(hash, payload(resultSet, 1), resultSet.getInt(5)),
+                    (Object) hash.toBytes());
+            return chunks.isEmpty() ? null : chunks.get(0);
+        } finally {
+            payloadReaders.remove(reader);
+        }
+    }
+
+    /**
+     * The stored chunk sharing the most super-features with {@code superFeatures}, shallowest delta chain first,
+     * among those less than {@code maxDepth} deltas away from a full chunk.
+     */
+    public SimilarChunk findSimilar(long[] superFeatures, int maxDepth) {
+        List<SimilarChunk> similar = jdbcTemplate.query(SELECT_SIMILAR,
+                (resultSet, row) -> new SimilarChunk(new ChunkFingerprint(resultSet.getBytes(1)), resultSet.getInt(2)),
+                superFeatures[0], superFeatures[1], superFeatures[2], maxDepth);
+        return similar.isEmpty() ? null : similar.get(0);
+    }
+
+    /**
+     * Stores the blobs and stages the references in one transaction; the references only replace the manifest of
+     * their file on {@link #commitManifest}. With an out-of-line backend the payloads are appended first, so a row never points at bytes that are not on disk; a rolled-back batch only leaves
+     * unreferenced bytes behind. A delta blob holds a reference on its base, so the base outlives it.
+     */
+    public void writeBatch(List<StoredChunk> blobs, List<Chunk> references) {
+        List<PackLocation> locations = blobs.isEmpty() || storage.isInline() ? null : append(blobs);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!blobs.isEmpty()) {
+                int[] inserted = jdbcTemplate.batchUpdate(INSERT_BLOB, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        StoredChunk blob = blobs.get(i);
+                        statement.setBytes(1, blob.getHash().toBytes());
+                        if (locations == null) {
+                            statement.setBytes(2, blob.getData());
+                            statement.setObject(3, null);
+                            statement.setObject(4, null);
+                        } else {
+                            statement.setBytes(2, null);
+                            statement.setLong(3, locations.get(i).getSegment());
+                            statement.setLong(4, locations.get(i).getOffset());
+                        }
+                        statement.setInt(5, blob.getOriginalSize());
+                        statement.setInt(6, blob.getData().length);
+                        statement.setInt(7, blob.getData()[0]);
+                        statement.setBytes(8, blob.getBaseHash() == null ? null : blob.getBaseHash().toBytes());
+                        statement.setInt(9, blob.getDeltaDepth());
+                        statement.setBytes(10, blob.getHash().toBytes());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return blobs.size();
+                    }
+                });
+                insertSimilarityData(blobs, inserted);
+            }
+            insertReferences(references);
+        });
+    }
+
+    private void insertSimilarityData(List<StoredChunk> blobs, int[] inserted) {
+        List<Object[]> features = new ArrayList<>();
+        List<Object[]> bases = new ArrayList<>();
+        for (int i = 0; i < blobs.size(); i++) {
+            StoredChunk blob = blobs.get(i);
+            if (inserted[i] == 0) {
+                continue;
+            }
+            if (blob.getSuperFeatures() != null) {
+                for (long feature : blob.getSuperFeatures()) {
+                    features.add(new Object[]{feature, blob.getHash().toBytes()});
+                }
+            }
+            if (blob.getBaseHash() != null) {
+                bases.add(new Object[]{blob.getBaseHash().toBytes()});
+            }
+        }
+        if (!features.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FEATURE, features);
+        }
+        if (!bases.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE chunk_store SET ref_count = ref_count + 1 WHERE hash = ?", bases);
+        }
+    }
+
+    private List<PackLocation> append(List<StoredChunk> blobs) {
+        List<byte[]> payloads = new ArrayList<>(blobs.size());
+        for (StoredChunk blob : blobs) {
+            payloads.add(blob.getData());
+        }
+        try {
+            return storage.append(payloads);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture des chunks dans le segment impossible", e);
+        }
+    }
+
+    /**
+     * Reads the payload of a row whose data, segment id, offset and compressed size start at {@code column}; null
+     * when the chunk is missing from the store.
+     */
+    private byte[] payload(ResultSet resultSet, int column) throws SQLException {
+        byte[] data = resultSet.getBytes(column);
+        if (data != null || resultSet.getObject(column + 1) == null) {
+            return data;
+        }
+        try {
+            return storage.read(resultSet.getLong(column + 1), resultSet.getLong(column + 2), resultSet.getInt(column + 3));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Swaps the manifest of {@code filePath} for the one staged by {@link #writeBatch} and records the new file
+     * version, in one transaction. Chunks only the old manifest used drop to a zero reference count and stay in
+     * the store.
+     */
+    public void commitManifest(String filePath, long size, long modifiedAt) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(RELEASE_FILE_REFERENCES, filePath, 0);
+            jdbcTemplate.update("DELETE FROM file_manifest WHERE file_path = ? AND staged = 0", filePath);
+            jdbcTemplate.update("UPDATE file_manifest SET staged = 0 WHERE file_path = ? AND staged = 1", filePath);
+            jdbcTemplate.update(UPSERT_FILE_VERSION, filePath, size, modifiedAt, System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * Drops the manifest an interrupted ingest of {@code filePath} staged, and the references it held; until
+     * then its chunks count as live.
+     */
+    public void discardStagedManifest(String filePath) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(RELEASE_FILE_REFERENCES, filePath, 1);
+            jdbcTemplate.update("DELETE FROM file_manifest WHERE file_path = ? AND staged = 1", filePath);
+        });
+    }
+
+    public FileVersion findFileVersion(String filePath) {
+        List<FileVersion> versions = jdbcTemplate.query(
+                "SELECT size, modified_at, version FROM file_version WHERE file_path = ?",
+                (resultSet, row) -> new FileVersion(filePath, resultSet.getLong(1), resultSet.getLong(2), resultSet.getInt(3)),
+                filePath);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private void insertReferences(List<Chunk> references) {
+        if (references.isEmpty()) {
+            return;
+        }
+        Map<ChunkFingerprint, Integer> referenceCounts = new LinkedHashMap<>();
+        for (Chunk reference : references) {
+            referenceCounts.merge(reference.getHash(), 1, Integer::sum);
+        }
+        jdbcTemplate.batchUpdate(INSERT_REFERENCE, references, references.size(), (statement, reference) -> {
+            statement.setString(1, reference.getFilePath());
+            statement.setInt(2, reference.getOrderIndex());
+            statement.setBytes(3, reference.getHash().toBytes());
+            statement.setLong(4, reference.getOffset());
+            statement.setInt(5, reference.getLength());
+        });
+        List<Map.Entry<ChunkFingerprint, Integer>> increments = new ArrayList<>(referenceCounts.entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_REF_COUNT, increments, increments.size(), (statement, increment) -> {
+            statement.setInt(1, increment.getValue());
+            statement.setBytes(2, increment.getKey().toBytes());
+        });
+    }
+
+    public void forEachFileChunk(String filePath, ChunkDataHandler handler) throws IOException {
+        Object reader = beginPayloadRead();
+        try {
+            jdbcTemplate.query(SELECT_FILE_CHUNKS, resultSet -> {
+                try {
+                    handler.handle(new ChunkFingerprint(resultSet.getBytes(1)), payload(resultSet, 2));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, filePath);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            payloadReaders.remove(reader);
+        }
+    }
+
+    /**
+     * Visits, in file order, the chunks overlapping [{@code from}, {@code to}) of version {@code version} of the
+     * file, as returned by {@link #findContentVersion}; the first one is found by seeking the
+     * (file_path, chunk_offset) index rather than scanning the manifest. The version is checked in the read
+     * transaction the manifest is streamed from, so a commit made since fails the read instead of mixing versions.
+     */
+    public void forEachFileChunk(String filePath, int version, long from, long to, ChunkRangeHandler handler)
+            throws IOException {
+        Object reader = beginPayloadRead();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (committedVersion(filePath) != version) {
+                    throw new UncheckedIOException(new IOException(
+                            "Version " + version + " de " + filePath + " remplacée pendant la lecture"));
+                }
+                jdbcTemplate.query(SELECT_FILE_RANGE, resultSet -> {
+                    try {
+                        handler.handle(new ChunkFingerprint(resultSet.getBytes(1)), resultSet.getLong(2),
+                                payload(resultSet, 3));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, filePath, to, filePath, from);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            payloadReaders.remove(reader);
+        }
+    }
+
+    /**
+     * Registers a payload read before its query starts: the snapshot that query reads may still locate chunks in
+     * segments retired after this point, until {@link #isReadingRetiredSegments} says otherwise.
+     */
+    private Object beginPayloadRead() {
+        Object reader = new Object();
+        payloadReaders.put(reader, retiredSegments.get());
+        return reader;
+    }
+
+    /**
+     * Number of segments retired so far; a segment retired as number {@code n} can be deleted once
+     * {@link #isReadingRetiredSegments(long)} returns false for {@code n}.
+     */
+    public long retiredSegments() {
+        return retiredSegments.get();
+    }
+
+    /**
+     * Whether a payload read that started before the {@code retirement}-th segment retirement is still running,
+     * and so may still read that segment.
+     */
+    public boolean isReadingRetiredSegments(long retirement) {
+        return payloadReaders.values().stream().anyMatch(started -> started < retirement);
+    }
+
+    /**
+     * Visits up to {@code limit} manifest entries after the {@code after} key, without reading chunk payloads.
+     * The key is the manifest id across all files, or the order index within {@code filePath} when given.
+     */
+    public void forEachSummary(String filePath, long after, int limit, Consumer<ChunkSummary> consumer) {
+        RowCallbackHandler handler = resultSet -> consumer.accept(new ChunkSummary(
+                filePath == null ? resultSet.getLong(1) : resultSet.getInt(4),
+                new ChunkFingerprint(resultSet.getBytes(2)), resultSet.getString(3), resultSet.getInt(4),
+                resultSet.getLong(5), resultSet.getInt(6), resultSet.getObject(7) == null ? null : resultSet.getInt(7),
+                resultSet.getObject(8) == null ? null : Codec.fromId((byte) resultSet.getInt(8))));
+        if (filePath == null) {
+            jdbcTemplate.query(SELECT_SUMMARIES + "WHERE m.id > ? AND m.staged = 0 ORDER BY m.id LIMIT ?",
+                    handler, after, limit);
+        } else {
+            jdbcTemplate.query(SELECT_SUMMARIES + "WHERE m.file_path = ? AND m.staged = 0 AND m.order_index > ? "
+                    + "ORDER BY m.order_index LIMIT ?", handler, filePath, after, limit);
+        }
+    }
+
+    /**
+     * The committed version of {@code filePath}, its size being the length of its manifest; both are read in one
+     * statement, so they belong to the same commit. Files ingested before versions were recorded are at version
+     * 0. Null if the file has no chunks.
+     */
+    public FileVersion findContentVersion(String filePath) {
+        return jdbcTemplate.queryForObject(SELECT_CONTENT_VERSION, (resultSet, row) -> resultSet.getInt(2) == 0 ? null
+                : new FileVersion(filePath, resultSet.getLong(1), resultSet.getLong(3), resultSet.getInt(4)), filePath);
+    }
+
+    private int committedVersion(String filePath) {
+        Integer version = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(version), 0) FROM file_version WHERE file_path = ?", Integer.class, filePath);
+        return version == null ? 0 : version;
+    }
+
+    public long fileLength(String filePath) {
+        Long length = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(length), 0) FROM file_manifest WHERE file_path = ? AND staged = 0", Long.class, filePath);
+        return length == null ? 0 : length;
+    }
+
+    public void forEachHash(Consumer<ChunkFingerprint> consumer) {
+        jdbcTemplate.query("SELECT hash FROM chunk_store", resultSet -> {
+            consumer.accept(new ChunkFingerprint(resultSet.getBytes(1)));
+        });
+    }
+
+    /**
+     * Held by each file ingest from its first duplicate lookup until its references are written, so that
+     * {@link #withoutIngest} never deletes a chunk an ingest has already decided to reference.
+     */
+    public void beginIngest() {
+        ingestGate.readLock().lock();
+    }
+
+    public void endIngest() {
+        ingestGate.readLock().unlock();
+    }
+
+    /**
+     * Runs {@code task} while no ingest is in flight, waiting at most {@code timeout} for the running ones to
+     * finish; new ingests wait meanwhile. Returns null when the gate could not be taken in time.
+     */
+    public <T> T withoutIngest(long timeout, TimeUnit unit, Supplier<T> task) throws InterruptedException {
+        if (!ingestGate.writeLock().tryLock(timeout, unit)) {
+            return null;
+        }
+        try {
+            return task.get();
+        } finally {
+            ingestGate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Live compressed bytes per pack segment; segments holding no row at all are absent.
+     */
+    public Map<Long, Long> segmentUsage() {
+        Map<Long, Long> usage = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_SEGMENT_USAGE, resultSet -> {
+            usage.put(resultSet.getLong(1), resultSet.getLong(2));
+        });
+        return usage;
+    }
+
+    public void forEachLiveChunk(long segment, LiveChunkHandler handler) throws IOException {
+        try {
+            jdbcTemplate.query("SELECT hash, segment_offset, compressed_size FROM chunk_store "
+                    + "WHERE segment_id = ? AND ref_count > 0 ORDER BY segment_offset", resultSet -> {
+                try {
+                    handler.handle(new ChunkFingerprint(resultSet.getBytes(1)), resultSet.getLong(2), resultSet.getInt(3));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, segment);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Moves the copied chunks of {@code segment} to their new locations and deletes its unreferenced ones, in one
+     * transaction. Deleted deltas release their bases, which are deleted in turn when they drop to zero in the
+     * same segment. Returns the deleted hashes, or null, rolling back, when a chunk revived since the copy would
+     * still point at the segment. A retired segment is counted in {@link #retiredSegments()}.
+     */
+    public List<ChunkFingerprint> retireSegment(long segment, Map<ChunkFingerprint, PackLocation> relocated) {
+        List<ChunkFingerprint> retired = transactionTemplate.execute(status -> {
+            List<Map.Entry<ChunkFingerprint, PackLocation>> moves = new ArrayList<>(relocated.entrySet());
+            if (!moves.isEmpty()) {
+                jdbcTemplate.batchUpdate(RELOCATE_CHUNK, moves, moves.size(), (statement, move) -> {
+                    statement.setLong(1, move.getValue().getSegment());
+                    statement.setLong(2, move.getValue().getOffset());
+                    statement.setBytes(3, move.getKey().toBytes());
+                    statement.setLong(4, segment);
+                });
+            }
+            List<ChunkFingerprint> deleted = new ArrayList<>();
+            while (true) {
+                List<ChunkFingerprint> unreferenced = jdbcTemplate.query(
+                        "SELECT hash FROM chunk_store WHERE segment_id = ? AND ref_count <= 0",
+                        (resultSet, row) -> new ChunkFingerprint(resultSet.getBytes(1)), segment);
+                if (unreferenced.isEmpty()) {
+                    break;
+                }
+                // releasing may bring bases of this segment to zero: they are picked up by the next round
+                jdbcTemplate.update(RELEASE_DELTA_BASES, segment);
+                List<Object[]> hashes = unreferenced.stream().map(hash -> new Object[]{hash.toBytes()}).toList();
+                jdbcTemplate.batchUpdate("DELETE FROM chunk_feature WHERE chunk_hash = ?", hashes);
+                jdbcTemplate.batchUpdate("DELETE FROM chunk_store WHERE hash = ?", hashes);
+                deleted.addAll(unreferenced);
+            }
+            Integer remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chunk_store WHERE segment_id = ?",
+                    Integer.class, segment);
+            if (remaining != null && remaining > 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            return deleted;
+        });
+        if (retired != null) {
+            retiredSegments.incrementAndGet();
+        }
+        return retired;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DictionaryRepository {
+    private static final String INSERT_DICTIONARY =
+            "INSERT INTO compression_dictionary (category, data, created_at) VALUES (?, ?, ?) RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @FunctionalInterface
+    public interface DictionaryHandler {
+        void handle(int id, String category, byte[] data);
+    }
+
+    public DictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int save(String category, byte[] data) {
+        Integer id = jdbcTemplate.queryForObject(INSERT_DICTIONARY, Integer.class, category, data, System.currentTimeMillis());
+        if (id == null) {
+            throw new IllegalStateException("Aucun identifiant retourné pour le dictionnaire " + category);
+        }
+        return id;
+    }
+
+    /**
+     * Visits every dictionary version in creation order, so the last one seen for a category is the active one.
+     */
+    public void forEach(DictionaryHandler handler) {
+        jdbcTemplate.query("SELECT id, category, data FROM compression_dictionary ORDER BY id", resultSet -> {
+            handler.handle(resultSet.getInt(1), resultSet.getString(2), resultSet.getBytes(3));
+        });
+    }
+}
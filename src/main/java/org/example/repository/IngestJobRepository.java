@@ -0,0 +1,75 @@
+package org.example.repository;
+
+import org.example.job.JobProgress;
+import org.example.job.JobStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Job checkpoints: one row per job plus one row per file it has finished, so an interrupted job can be
+ * resumed without re-submitting completed files.
+ */
+@Repository
+public class IngestJobRepository {
+    private static final String SELECT_JOB =
+            "SELECT id, source, status, files_total, files_done, files_failed, bytes_total, bytes_done, last_error "
+                    + "FROM ingest_job ";
+    private static final RowMapper<JobProgress> JOB_MAPPER = (resultSet, row) -> new JobProgress(
+            resultSet.getString(1), resultSet.getString(2), JobStatus.valueOf(resultSet.getString(3)), false,
+            resultSet.getLong(4), resultSet.getLong(5), resultSet.getLong(6), resultSet.getLong(7), resultSet.getLong(8),
+            0, null, resultSet.getString(9));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IngestJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void create(String id, String source) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO ingest_job (id, source, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                id, source, JobStatus.RUNNING.name(), now, now);
+    }
+
+    public void markFileDone(String id, String filePath, long size) {
+        jdbcTemplate.update("INSERT OR IGNORE INTO ingest_job_file (job_id, file_path, size) VALUES (?, ?, ?)",
+                id, filePath, size);
+    }
+
+    public void forEachDoneFile(String id, ObjLongConsumer<String> consumer) {
+        jdbcTemplate.query("SELECT file_path, size FROM ingest_job_file WHERE job_id = ?",
+                resultSet -> {
+                    consumer.accept(resultSet.getString(1), resultSet.getLong(2));
+                }, id);
+    }
+
+    public void updateStatus(String id, JobStatus status) {
+        jdbcTemplate.update("UPDATE ingest_job SET status = ?, updated_at = ? WHERE id = ?",
+                status.name(), System.currentTimeMillis(), id);
+    }
+
+    /**
+     * Stores the final counters of a job; its per-file checkpoints are no longer needed and are dropped.
+     */
+    public void finish(JobProgress progress) {
+        jdbcTemplate.update("UPDATE ingest_job SET status = ?, files_total = ?, files_done = ?, files_failed = ?, "
+                        + "bytes_total = ?, bytes_done = ?, last_error = ?, updated_at = ? WHERE id = ?",
+                progress.getStatus().name(), progress.getFilesTotal(), progress.getFilesDone(), progress.getFilesFailed(),
+                progress.getBytesTotal(), progress.getBytesDone(), progress.getLastError(), System.currentTimeMillis(),
+                progress.getId());
+        jdbcTemplate.update("DELETE FROM ingest_job_file WHERE job_id = ?", progress.getId());
+    }
+
+    public JobProgress find(String id) {
+        List<JobProgress> jobs = jdbcTemplate.query(SELECT_JOB + "WHERE id = ?", JOB_MAPPER, id);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    public List<JobProgress> findByStatus(JobStatus status) {
+        return jdbcTemplate.query(SELECT_JOB + "WHERE status = ? ORDER BY created_at", JOB_MAPPER, status.name());
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.repository;
+
+import org.example.compression.Codec;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs schema.sql after bringing a database created by an earlier version up to date: CREATE TABLE IF NOT EXISTS
+ * leaves an existing table as it was, so every column added since is added here instead. The number of steps
+ * applied is kept in {@code PRAGMA user_version}; databases created before it was kept are all at 0, so each
+ * step also checks whether its change is already there.
+ */
+@Component
+public class SchemaMigrator extends SqlDataSourceScriptDatabaseInitializer {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    @FunctionalInterface
+    private interface Migration {
+        void apply(JdbcTemplate jdbcTemplate);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Migration> migrations = List.of(
+            SchemaMigrator::addCodecColumn,
+            SchemaMigrator::addSegmentColumns,
+            SchemaMigrator::addDeltaColumns,
+            SchemaMigrator::addStagedColumn);
+
+    public SchemaMigrator(DataSource dataSource, SqlInitializationProperties properties) {
+        super(dataSource, properties);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        migrate();
+        boolean initialized = super.initializeDatabase();
+        if (hasTable(jdbcTemplate, "chunk_store")) {
+            jdbcTemplate.execute("PRAGMA user_version = " + migrations.size());
+        }
+        return initialized;
+    }
+
+    /**
+     * Applies the steps not applied yet to an existing database, each in its own transaction.
+     */
+    public void migrate() {
+        if (!hasTable(jdbcTemplate, "chunk_store")) {
+            return;
+        }
+        Integer version = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+        for (int step = version == null ? 0 : version; step < migrations.size(); step++) {
+            Migration migration = migrations.get(step);
+            int applied = step + 1;
+            transactionTemplate.executeWithoutResult(status -> {
+                migration.apply(jdbcTemplate);
+                jdbcTemplate.execute("PRAGMA user_version = " + applied);
+            });
+            logger.info("🛠️ Schéma migré en version " + applied);
+        }
+    }
+
+    /**
+     * The codec of a stored chunk is the first byte of its header: chunks stored before the column existed get it
+     * from there.
+     */
+    private static void addCodecColumn(JdbcTemplate jdbcTemplate) {
+        if (hasColumn(jdbcTemplate, "chunk_store", "codec")) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE chunk_store ADD COLUMN codec INTEGER NOT NULL DEFAULT 0");
+        String codecOfHeader = Arrays.stream(Codec.values())
+                .map(codec -> String.format("WHEN '%02X' THEN %d", codec.id(), codec.id()))
+                .collect(Collectors.joining(" ", "CASE hex(substr(data, 1, 1)) ", " END"));
+        jdbcTemplate.execute("UPDATE chunk_store SET codec = " + codecOfHeader);
+    }
+
+    /**
+     * Pack storage keeps a chunk's bytes in a segment rather than in {@code data}, which therefore becomes nullable.
+     * SQLite cannot drop a NOT NULL constraint, so the table is rebuilt and its rows copied over.
+     */
+    private static void addSegmentColumns(JdbcTemplate jdbcTemplate) {
+        if (hasColumn(jdbcTemplate, "chunk_store", "segment_id") && !isNotNull(jdbcTemplate, "chunk_store", "data")) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE chunk_store_migrated (hash BLOB PRIMARY KEY, data BLOB, segment_id INTEGER, "
+                + "segment_offset INTEGER, original_size INTEGER NOT NULL, compressed_size INTEGER NOT NULL, "
+                + "codec INTEGER NOT NULL, ref_count INTEGER NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO chunk_store_migrated (hash, data, original_size, compressed_size, codec, ref_count) "
+                + "SELECT hash, data, original_size, compressed_size, codec, ref_count FROM chunk_store");
+        jdbcTemplate.execute("DROP TABLE chunk_store");
+        jdbcTemplate.execute("ALTER TABLE chunk_store_migrated RENAME TO chunk_store");
+    }
+
+    /**
+     * Chunks stored before delta compression are all full chunks: no base, depth 0. chunk_feature is a new table,
+     * created by schema.sql.
+     */
+    private static void addDeltaColumns(JdbcTemplate jdbcTemplate) {
+        if (!hasColumn(jdbcTemplate, "chunk_store", "base_hash")) {
+            jdbcTemplate.execute("ALTER TABLE chunk_store ADD COLUMN base_hash BLOB");
+        }
+        if (!hasColumn(jdbcTemplate, "chunk_store", "delta_depth")) {
+            jdbcTemplate.execute("ALTER TABLE chunk_store ADD COLUMN delta_depth INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    /**
+     * Staged manifests used to live under a {@code "staged:"} path prefix; they are now flagged and share the path
+     * of their file, which takes the flag into the unique key, so the table is rebuilt. No ingest runs during the
+     * migration, so prefixed rows are leftovers of interrupted ingests: they become staged rows of their file,
+     * which its next ingest discards. Ids are kept, so listing cursors stay valid.
+     */
+    private static void addStagedColumn(JdbcTemplate jdbcTemplate) {
+        if (hasColumn(jdbcTemplate, "file_manifest", "staged")) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE file_manifest_migrated (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "file_path TEXT NOT NULL, staged INTEGER NOT NULL DEFAULT 0, order_index INTEGER NOT NULL, "
+                + "chunk_hash BLOB NOT NULL, chunk_offset INTEGER NOT NULL, length INTEGER NOT NULL, "
+                + "UNIQUE (file_path, staged, order_index))");
+        jdbcTemplate.execute("INSERT INTO file_manifest_migrated (id, file_path, staged, order_index, chunk_hash, "
+                + "chunk_offset, length) SELECT id, CASE WHEN substr(file_path, 1, 7) = 'staged:' THEN substr(file_path, 8) "
+                + "ELSE file_path END, substr(file_path, 1, 7) = 'staged:', order_index, chunk_hash, chunk_offset, length "
+                + "FROM file_manifest");
+        jdbcTemplate.execute("DROP TABLE file_manifest");
+        jdbcTemplate.execute("ALTER TABLE file_manifest_migrated RENAME TO file_manifest");
+    }
+
+    private static boolean hasTable(JdbcTemplate jdbcTemplate, String table) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private static boolean hasColumn(JdbcTemplate jdbcTemplate, String table, String column) {
+        return jdbcTemplate.queryForList("SELECT name FROM pragma_table_info(?)", String.class, table).contains(column);
+    }
+
+    private static boolean isNotNull(JdbcTemplate jdbcTemplate, String table, String column) {
+        Integer notNull = jdbcTemplate.queryForObject("SELECT \"notnull\" FROM pragma_table_info(?) WHERE name = ?",
+                Integer.class, table, column);
+        return notNull != null && notNull == 1;
+    }
+}
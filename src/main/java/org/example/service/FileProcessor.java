@@ -1,81 +1,370 @@
 package org.example.service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.chunking.ChunkView;
 import org.example.chunking.ChunkerInterface;
-import org.example.chunking.FastCDCChunker;
+import org.example.chunking.MappedFileChunker;
+import org.example.compression.CompressionHint;
 import org.example.compression.CompressionServiceInterface;
+import org.example.deduplication.ClaimResult;
 import org.example.deduplication.DuplicateDetectorInterface;
+import org.example.metrics.PipelineMetrics;
 import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.ChunkSummary;
+import org.example.model.FileVersion;
+import org.example.model.StoredChunk;
 import org.example.repository.ChunkRepository;
+import org.example.repository.ChunkStoreRepository;
+import org.example.similarity.DeltaBase;
+import org.example.similarity.ResemblanceDetector;
 import org.springframework.stereotype.Service;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 @Service
 public class FileProcessor {
     private static final Logger logger = Logger.getLogger(FileProcessor.class.getName());
+    private static final long MAPPED_FILE_THRESHOLD = 64L * 1024 * 1024;
     private final ChunkerInterface chunker;
     private final DuplicateDetectorInterface deduplicator;
     private final CompressionServiceInterface compressor;
     private final ChunkRepository chunkRepository;
-    private final FastCDCChunker textChunker;
-
-    private final Cache<String, Boolean> deduplicationCache = Caffeine.newBuilder()
-            .maximumSize(100_000)
-            .expireAfterAccess(5, java.util.concurrent.TimeUnit.MINUTES)
-            .build();
+    private final ChunkStoreRepository chunkStoreRepository;
+    private final MappedFileChunker mappedFileChunker;
+    private final IngestPipeline pipeline;
+    private final PipelineMetrics metrics;
+    private final ResemblanceDetector resemblance;
 
     public FileProcessor(ChunkerInterface chunker, DuplicateDetectorInterface deduplicator,
-                         CompressionServiceInterface compressor, ChunkRepository chunkRepository, FastCDCChunker textChunker) {
+                         CompressionServiceInterface compressor, ChunkRepository chunkRepository,
+                         ChunkStoreRepository chunkStoreRepository, MappedFileChunker mappedFileChunker,
+                         IngestPipeline pipeline, PipelineMetrics metrics, ResemblanceDetector resemblance) {
         this.chunker = chunker;
         this.deduplicator = deduplicator;
         this.compressor = compressor;
         this.chunkRepository = chunkRepository;
-        this.textChunker = textChunker;
+        this.chunkStoreRepository = chunkStoreRepository;
+        this.mappedFileChunker = mappedFileChunker;
+        this.pipeline = pipeline;
+        this.metrics = metrics;
+        this.resemblance = resemblance;
     }
 
-    public synchronized List<Chunk> processFile(String filePath) throws Exception {
+    /**
+     * Ingests {@code filePath} unless its stored version is current, and returns its number of chunks.
+     */
+    public int processFile(String filePath) throws Exception {
         File file = new File(filePath);
         if (!file.exists() || !file.isFile()) {
             throw new Exception("Fichier introuvable : " + filePath);
         }
 
-        if (chunkRepository.existsByFilePath(filePath)) {
-            return chunkRepository.findByFilePath(filePath);
+        long size = file.length();
+        long modifiedAt = file.lastModified();
+        FileVersion known = chunkStoreRepository.findFileVersion(filePath);
+        if (known != null && known.matches(size, modifiedAt)) {
+            return Math.toIntExact(chunkRepository.countByFilePath(filePath));
+        }
+        chunkStoreRepository.beginIngest();
+        try {
+            return ingest(file, filePath, size, modifiedAt, known != null);
+        } finally {
+            chunkStoreRepository.endIngest();
         }
+    }
 
-        byte[] fileData = Files.readAllBytes(Path.of(filePath));
-        boolean isText = isTextFile(filePath);
-        List<byte[]> chunks = isText ? textChunker.chunkTextData(new String(fileData)) : chunker.chunkData(fileData);
+    /**
+     * The new manifest is staged batch by batch and swapped in at the end, so the previous version stays
+     * readable meanwhile and the references never have to be held in memory.
+     */
+    private int ingest(File file, String filePath, long size, long modifiedAt, boolean newVersion) throws Exception {
+        // left behind by an interrupted ingest of the same file
+        chunkStoreRepository.discardStagedManifest(filePath);
+
+        Path path = file.toPath();
+        CompressionHint hint = compressor.hintFor(path);
+        ManifestCursor manifest = new ManifestCursor(filePath);
+        List<PreparedChunk> borrowed = new ArrayList<>();
+        IngestPipeline.BatchWriter<PreparedChunk> writer = batch -> persist(batch, manifest, borrowed);
+        Consumer<PreparedChunk> discard = prepared -> {
+            if (prepared.isNew()) {
+                deduplicator.release(prepared.fingerprint);
+            }
+        };
+        ProducerClock clock = new ProducerClock(metrics);
 
-        AtomicInteger orderIndex = new AtomicInteger(0);
-        List<Chunk> resultChunks = new ArrayList<>();
+        if (size >= MAPPED_FILE_THRESHOLD) {
+            pipeline.run(stage -> mappedFileChunker.chunkFile(path, chunker,
+                    view -> emit(stage, clock, () -> prepare(view, hint))), writer, discard);
+        } else {
+            pipeline.run(stage -> {
+                try (InputStream input = clock.timed(Files.newInputStream(path))) {
+                    chunker.chunkStream(input, size, chunk -> emit(stage, clock, () -> prepare(chunk, hint)));
+                }
+            }, writer, discard);
+        }
+
+        for (PreparedChunk prepared : borrowed) {
+            settle(prepared, hint);
+        }
+        long start = System.nanoTime();
+        chunkStoreRepository.commitManifest(filePath, size, modifiedAt);
+        metrics.timer(PipelineMetrics.Stage.PERSIST).recordSince(start);
+        if (newVersion) {
+            logger.info("♻️ Nouvelle version de " + filePath + " : " + manifest.count + " chunks");
+        }
+        return manifest.count;
+    }
+
+    /**
+     * Mapped files are read through page faults, so their read time is charged to the chunk stage.
+     */
+    private static <R> void emit(IngestPipeline.Stage<R> stage, ProducerClock clock, Callable<R> task) throws IOException {
+        clock.chunkFound();
+        stage.submit(task);
+        clock.resume();
+    }
+
+    private PreparedChunk prepare(byte[] chunk, CompressionHint hint) throws IOException {
+        long start = System.nanoTime();
+        ChunkFingerprint fingerprint = deduplicator.fingerprint(chunk);
+        start = lap(PipelineMetrics.Stage.HASH, start);
+        ClaimResult claim = deduplicator.claim(fingerprint);
+        start = lap(PipelineMetrics.Stage.DEDUP_LOOKUP, start);
+        metrics.recordChunk(chunk.length, claim != ClaimResult.CLAIMED);
+        if (claim == ClaimResult.STORED) {
+            verifyDuplicate(fingerprint, ByteBuffer.wrap(chunk));
+            return new PreparedChunk(fingerprint, chunk.length, null);
+        }
+        if (claim == ClaimResult.IN_FLIGHT) {
+            return PreparedChunk.borrowed(fingerprint, chunk);
+        }
+        try {
+            return encode(fingerprint, ByteBuffer.wrap(chunk), () -> compressor.compress(chunk, hint), start);
+        } catch (IOException | RuntimeException e) {
+            deduplicator.release(fingerprint);
+            throw e;
+        }
+    }
 
-        for (byte[] chunk : chunks) {
-            String chunkHash = Long.toString(deduplicator.computeXXHash(chunk));
-            if (deduplicationCache.getIfPresent(chunkHash) == null) {
-                deduplicationCache.put(chunkHash, true);
-                byte[] compressed = compressor.compress(chunk);
-                Chunk chunkEntity = new Chunk(chunkHash, filePath, orderIndex.getAndIncrement(), compressed);
-                chunkRepository.save(chunkEntity);
-                resultChunks.add(chunkEntity);
+    private PreparedChunk prepare(ChunkView chunk, CompressionHint hint) throws IOException {
+        long start = System.nanoTime();
+        ChunkFingerprint fingerprint = deduplicator.fingerprint(chunk.getData());
+        start = lap(PipelineMetrics.Stage.HASH, start);
+        ClaimResult claim = deduplicator.claim(fingerprint);
+        start = lap(PipelineMetrics.Stage.DEDUP_LOOKUP, start);
+        metrics.recordChunk(chunk.getLength(), claim != ClaimResult.CLAIMED);
+        if (claim == ClaimResult.STORED) {
+            verifyDuplicate(fingerprint, chunk.getData());
+            return new PreparedChunk(fingerprint, chunk.getLength(), null);
+        }
+        if (claim == ClaimResult.IN_FLIGHT) {
+            return PreparedChunk.borrowed(fingerprint, chunk.toByteArray());
+        }
+        try {
+            return encode(fingerprint, chunk.getData(), () -> compressor.compress(chunk.getData(), hint), start);
+        } catch (IOException | RuntimeException e) {
+            deduplicator.release(fingerprint);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores a new chunk as a delta against a similar stored chunk when one exists. A delta of at most half the
+     * chunk is kept as is, without trying full compression, which saves a compression per near-duplicate and
+     * only rarely gives up a smaller result; a larger delta is compared with the full compression and the
+     * smaller of the two is kept.
+     */
+    private PreparedChunk encode(ChunkFingerprint fingerprint, ByteBuffer chunk, Compression full, long start)
+            throws IOException {
+        int length = chunk.remaining();
+        long[] features = resemblance.sketch(chunk);
+        DeltaBase base = null;
+        if (features != null) {
+            base = resemblance.findBase(features);
+            start = lap(PipelineMetrics.Stage.RESEMBLANCE, start);
+        }
+        PreparedChunk prepared = null;
+        if (base != null) {
+            byte[] delta = compressor.compressDelta(chunk, base.getOriginal(), base.getHash().toBytes());
+            if (delta != null) {
+                int depth = base.getDepth() + 1;
+                prepared = new PreparedChunk(fingerprint, length, delta, base.getHash(), depth,
+                        resemblance.canBeBase(depth) ? features : null);
+            }
+        }
+        if (prepared == null || prepared.compressed.length * 2 > length) {
+            byte[] compressed = full.compress();
+            if (prepared == null || compressed.length <= prepared.compressed.length) {
+                prepared = new PreparedChunk(fingerprint, length, compressed, null, 0, features);
             }
         }
+        lap(PipelineMetrics.Stage.COMPRESS, start);
+        return prepared;
+    }
 
-        return resultChunks;
+    private void verifyDuplicate(ChunkFingerprint fingerprint, ByteBuffer chunk) throws IOException {
+        if (!deduplicator.verifiesOnMatch()) {
+            return;
+        }
+        StoredChunk stored = chunkStoreRepository.findChunk(fingerprint);
+        if (stored == null) {
+            return;
+        }
+        byte[] original = compressor.deltaBase(ByteBuffer.wrap(stored.getData())) == null
+                ? compressor.decompress(stored.getData(), stored.getOriginalSize())
+                : resemblance.original(fingerprint);
+        if (!ByteBuffer.wrap(original).equals(chunk)) {
+            throw new IOException("Collision d'empreinte détectée pour le chunk " + fingerprint);
+        }
     }
 
-    private boolean isTextFile(String filePath) {
-        return filePath.endsWith(".txt") || filePath.endsWith(".log") || filePath.endsWith(".csv");
+    /**
+     * Stores the new chunks of a batch and stages its references, in one transaction. Chunks claimed by another
+     * ingest are referenced too, since a staged manifest is not readable yet, but are kept in {@code borrowed}
+     * until that ingest has stored them.
+     */
+    private void persist(List<PreparedChunk> batch, ManifestCursor manifest, List<PreparedChunk> borrowed) {
+        List<StoredChunk> blobs = new ArrayList<>();
+        List<Chunk> references = new ArrayList<>(batch.size());
+        for (PreparedChunk prepared : batch) {
+            references.add(manifest.next(prepared.fingerprint, prepared.length));
+            if (prepared.isNew()) {
+                blobs.add(prepared.toStoredChunk());
+            } else if (prepared.original != null) {
+                borrowed.add(prepared);
+            }
+        }
+
+        long start = System.nanoTime();
+        // on failure the pipeline hands the whole batch back for its claims to be released
+        chunkStoreRepository.writeBatch(blobs, references);
+        metrics.timer(PipelineMetrics.Stage.PERSIST).recordSince(start);
+        for (PreparedChunk prepared : batch) {
+            if (prepared.isNew()) {
+                deduplicator.commit(prepared.fingerprint);
+                metrics.recordStored(prepared.compressed[0], prepared.length, prepared.compressed.length);
+            }
+        }
+        // most owners are only a batch ahead: drop the bytes they have stored since
+        borrowed.removeIf(prepared -> chunkStoreRepository.contains(prepared.fingerprint));
+    }
+
+    /**
+     * Waits for the ingest that claimed a chunk this file references to store it, or stores it from this file
+     * when that ingest gave it up; the manifest is only committed afterwards.
+     */
+    private void settle(PreparedChunk borrowed, CompressionHint hint) throws IOException {
+        ChunkFingerprint fingerprint = borrowed.fingerprint;
+        byte[] chunk = borrowed.original;
+        while (true) {
+            ClaimResult claim = deduplicator.claim(fingerprint);
+            if (claim == ClaimResult.STORED) {
+                verifyDuplicate(fingerprint, ByteBuffer.wrap(chunk));
+                return;
+            }
+            if (claim == ClaimResult.CLAIMED) {
+                break;
+            }
+            try {
+                deduplicator.awaitClaim(fingerprint);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Ingestion interrompue", e);
+            }
+        }
+        try {
+            PreparedChunk prepared = encode(fingerprint, ByteBuffer.wrap(chunk), () -> compressor.compress(chunk, hint),
+                    System.nanoTime());
+            chunkStoreRepository.writeBatch(List.of(prepared.toStoredChunk()), List.of());
+            deduplicator.commit(fingerprint);
+            metrics.recordStored(prepared.compressed[0], prepared.length, prepared.compressed.length);
+        } catch (IOException | RuntimeException e) {
+            deduplicator.release(fingerprint);
+            throw e;
+        }
+    }
+
+    public void forEachChunkSummary(String filePath, long after, int limit, Consumer<ChunkSummary> consumer) {
+        chunkStoreRepository.forEachSummary(filePath, after, limit, consumer);
+    }
+
+    private long lap(PipelineMetrics.Stage stage, long start) {
+        long now = System.nanoTime();
+        metrics.timer(stage).record(now - start);
+        return now;
+    }
+
+    @FunctionalInterface
+    private interface Compression {
+        byte[] compress() throws IOException;
+    }
+
+    private static final class ManifestCursor {
+        private final String filePath;
+        private int count;
+        private long offset;
+
+        private ManifestCursor(String filePath) {
+            this.filePath = filePath;
+        }
+
+        private Chunk next(ChunkFingerprint fingerprint, int length) {
+            Chunk reference = new Chunk(fingerprint, filePath, count++, offset, length);
+            offset += length;
+            return reference;
+        }
     }
 
-    public List<Chunk> getAllChunks() {
-        return chunkRepository.findAll();
+    private static final class PreparedChunk {
+        private final ChunkFingerprint fingerprint;
+        private final int length;
+        private final byte[] compressed;
+        private final ChunkFingerprint base;
+        private final int depth;
+        private final long[] features;
+        // the raw bytes of a chunk another ingest claimed, in case it gives it up
+        private final byte[] original;
+
+        private PreparedChunk(ChunkFingerprint fingerprint, int length, byte[] compressed) {
+            this(fingerprint, length, compressed, null, 0, null, null);
+        }
+
+        private PreparedChunk(ChunkFingerprint fingerprint, int length, byte[] compressed, ChunkFingerprint base,
+                              int depth, long[] features) {
+            this(fingerprint, length, compressed, base, depth, features, null);
+        }
+
+        private PreparedChunk(ChunkFingerprint fingerprint, int length, byte[] compressed, ChunkFingerprint base,
+                              int depth, long[] features, byte[] original) {
+            this.fingerprint = fingerprint;
+            this.length = length;
+            this.compressed = compressed;
+            this.base = base;
+            this.depth = depth;
+            this.features = features;
+            this.original = original;
+        }
+
+        private static PreparedChunk borrowed(ChunkFingerprint fingerprint, byte[] original) {
+            return new PreparedChunk(fingerprint, original.length, null, null, 0, null, original);
+        }
+
+        private boolean isNew() {
+            return compressed != null;
+        }
+
+        private StoredChunk toStoredChunk() {
+            return new StoredChunk(fingerprint, compressed, length, base, depth, features);
+        }
     }
-}
\ No newline at end of file
+}
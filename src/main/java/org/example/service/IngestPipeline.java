@@ -0,0 +1,208 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.IngestProperties;
+import org.example.metrics.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Component
+public class IngestPipeline {
+    private static final Future<?> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService chunkerStage;
+    private final ForkJoinPool computeStage;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Set<BlockingQueue<Future<?>>> runningQueues = ConcurrentHashMap.newKeySet();
+
+    @FunctionalInterface
+    public interface Stage<R> {
+        void submit(Callable<R> task) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Source<R> {
+        void produce(Stage<R> stage) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter<R> {
+        void write(List<R> batch) throws IOException;
+    }
+
+    @Autowired
+    public IngestPipeline(IngestProperties properties, PipelineMetrics metrics) {
+        this(properties);
+        metrics.gauge("ingest.queued-chunks", () -> runningQueues.stream().mapToLong(BlockingQueue::size).sum());
+        metrics.gauge("ingest.compute.active-threads", computeStage::getActiveThreadCount);
+        metrics.gauge("ingest.compute.queued-tasks", computeStage::getQueuedSubmissionCount);
+    }
+
+    public IngestPipeline(IngestProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        this.chunkerStage = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ingest-chunker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.computeStage = new ForkJoinPool(properties.getComputeThreads());
+        this.queueCapacity = properties.getQueueCapacity();
+        this.batchSize = properties.getBatchSize();
+    }
+
+    /**
+     * Runs one file through the stages. When the run fails, the chunker is stopped at its next chunk and every
+     * result prepared but not written, whether queued, in flight or batched, is handed to {@code discard}.
+     */
+    public <R> void run(Source<R> source, BatchWriter<R> writer, Consumer<R> discard) throws IOException {
+        BlockingQueue<Future<?>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean aborted = new AtomicBoolean();
+        Future<?> producer = chunkerStage.submit(() -> {
+            try {
+                source.produce(task -> {
+                    if (aborted.get()) {
+                        throw new IOException("Ingestion abandonnée");
+                    }
+                    // every submitted task is queued, so the writer sees, and can discard, all of them
+                    putUninterruptibly(queue, computeStage.submit(task));
+                });
+            } finally {
+                // also on failure, or the writer would wait forever; it then collects the failure from the future
+                putUninterruptibly(queue, END_OF_STREAM);
+            }
+            return null;
+        });
+        runningQueues.add(queue);
+
+        List<R> batch = new ArrayList<>(batchSize);
+        boolean ended = false;
+        boolean written = false;
+        try {
+            while (true) {
+                Future<?> next = queue.take();
+                if (next == END_OF_STREAM) {
+                    ended = true;
+                    break;
+                }
+                batch.add(result(next));
+                if (batch.size() >= batchSize) {
+                    writer.write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            producer.get();
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+            }
+            written = true;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ingestion interrompue", e);
+        } finally {
+            runningQueues.remove(queue);
+            if (!written) {
+                aborted.set(true);
+                batch.forEach(discard);
+                if (!ended) {
+                    drain(queue, discard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the chunker to stop and for the tasks it queued to finish, discarding their results; a failed
+     * task has already released what it held.
+     */
+    private static <R> void drain(BlockingQueue<Future<?>> queue, Consumer<R> discard) {
+        boolean interrupted = false;
+        while (true) {
+            Future<?> next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                continue;
+            }
+            if (next == END_OF_STREAM) {
+                break;
+            }
+            while (true) {
+                try {
+                    discard.accept(result(next));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R result(Future<?> future) throws ExecutionException, InterruptedException {
+        return (R) future.get();
+    }
+
+    /**
+     * The writer keeps taking from the queue until the end marker, even after a failure, so a put always
+     * completes; an interrupt is only restored once it has.
+     */
+    private static void putUninterruptibly(BlockingQueue<Future<?>> queue, Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(future);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkerStage.shutdownNow();
+        computeStage.shutdownNow();
+    }
+}
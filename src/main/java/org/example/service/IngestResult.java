@@ -0,0 +1,33 @@
+package org.example.service;
+
+public class IngestResult {
+    private final String filePath;
+    private final int chunkCount;
+    private final String error;
+
+    private IngestResult(String filePath, int chunkCount, String error) {
+        this.filePath = filePath;
+        this.chunkCount = chunkCount;
+        this.error = error;
+    }
+
+    public static IngestResult success(String filePath, int chunkCount) {
+        return new IngestResult(filePath, chunkCount, null);
+    }
+
+    public static IngestResult failure(String filePath, String error) {
+        return new IngestResult(filePath, 0, error);
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
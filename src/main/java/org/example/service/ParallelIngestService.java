@@ -0,0 +1,111 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.IngestProperties;
+import org.example.metrics.PipelineMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+@Service
+public class ParallelIngestService {
+    private static final Logger logger = Logger.getLogger(ParallelIngestService.class.getName());
+    private final FileProcessor fileProcessor;
+    private final ExecutorService workers;
+    private final Semaphore inFlightFiles;
+    private final Map<String, CompletableFuture<Integer>> runningFiles = new ConcurrentHashMap<>();
+
+    public ParallelIngestService(FileProcessor fileProcessor, IngestProperties properties, PipelineMetrics metrics) {
+        this.fileProcessor = fileProcessor;
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(), workerThreadFactory());
+        this.inFlightFiles = new Semaphore(properties.getMaxInFlightFiles());
+        metrics.gauge("ingest.files.running", runningFiles::size);
+        metrics.gauge("ingest.files.waiting", inFlightFiles::getQueueLength);
+    }
+
+    public CompletableFuture<Integer> submit(String filePath) throws InterruptedException {
+        CompletableFuture<Integer> running = runningFiles.get(filePath);
+        if (running != null) {
+            return running;
+        }
+
+        inFlightFiles.acquire();
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        running = runningFiles.putIfAbsent(filePath, future);
+        if (running != null) {
+            inFlightFiles.release();
+            return running;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    future.complete(fileProcessor.processFile(filePath));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    runningFiles.remove(filePath, future);
+                    inFlightFiles.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            runningFiles.remove(filePath, future);
+            inFlightFiles.release();
+            throw e;
+        }
+        return future;
+    }
+
+    public int process(String filePath) throws Exception {
+        try {
+            return submit(filePath).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    public List<IngestResult> processAll(List<String> filePaths) throws InterruptedException {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (String filePath : filePaths) {
+            futures.add(submit(filePath));
+        }
+
+        List<IngestResult> results = new ArrayList<>();
+        for (int i = 0; i < filePaths.size(); i++) {
+            String filePath = filePaths.get(i);
+            try {
+                results.add(IngestResult.success(filePath, futures.get(i).get()));
+            } catch (ExecutionException e) {
+                logger.severe("❌ Erreur lors du traitement du fichier " + filePath + " : " + e.getCause().getMessage());
+                results.add(IngestResult.failure(filePath, e.getCause().getMessage()));
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ingest-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
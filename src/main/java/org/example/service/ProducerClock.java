@@ -0,0 +1,65 @@
+package org.example.service;
+
+import org.example.metrics.PipelineMetrics;
+import org.example.metrics.StageTimer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits the producer thread's time between reading and chunking. The gap between two emitted chunks,
+ * minus the time spent inside reads, is charged to the chunker; time blocked handing a chunk to the
+ * compute stage is excluded by {@link #resume()}. Used by one producer thread at a time.
+ */
+final class ProducerClock {
+    private final StageTimer read;
+    private final StageTimer chunk;
+    private long readNanos;
+    private long readAtMark;
+    private long mark = System.nanoTime();
+
+    ProducerClock(PipelineMetrics metrics) {
+        this.read = metrics.timer(PipelineMetrics.Stage.READ);
+        this.chunk = metrics.timer(PipelineMetrics.Stage.CHUNK);
+    }
+
+    InputStream timed(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read();
+                } finally {
+                    elapsed(start);
+                }
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read(buffer, offset, length);
+                } finally {
+                    elapsed(start);
+                }
+            }
+        };
+    }
+
+    void chunkFound() {
+        chunk.record(System.nanoTime() - mark - (readNanos - readAtMark));
+    }
+
+    void resume() {
+        mark = System.nanoTime();
+        readAtMark = readNanos;
+    }
+
+    private void elapsed(long start) {
+        long nanos = System.nanoTime() - start;
+        readNanos += nanos;
+        read.record(nanos);
+    }
+}
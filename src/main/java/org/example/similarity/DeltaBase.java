@@ -0,0 +1,33 @@
+package org.example.similarity;
+
+import org.example.model.ChunkFingerprint;
+
+/**
+ * A stored chunk similar to the one being ingested, with its original bytes.
+ */
+public class DeltaBase {
+    private final ChunkFingerprint hash;
+    private final int depth;
+    private final byte[] original;
+
+    public DeltaBase(ChunkFingerprint hash, int depth, byte[] original) {
+        this.hash = hash;
+        this.depth = depth;
+        this.original = original;
+    }
+
+    public ChunkFingerprint getHash() {
+        return hash;
+    }
+
+    /**
+     * Number of deltas between this chunk and a fully stored one; 0 when it is stored in full.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public byte[] getOriginal() {
+        return original;
+    }
+}
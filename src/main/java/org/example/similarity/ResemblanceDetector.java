@@ -0,0 +1,115 @@
+package org.example.similarity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.compression.CompressionServiceInterface;
+import org.example.config.SimilarityProperties;
+import org.example.metrics.PipelineMetrics;
+import org.example.model.ChunkFingerprint;
+import org.example.model.SimilarChunk;
+import org.example.model.StoredChunk;
+import org.example.repository.ChunkStoreRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Second chance after an exact-match miss: finds a stored chunk that resembles the new one through the
+ * super-feature index, so the new chunk can be stored as a delta against it. Also resolves delta chains for
+ * reads; chains are at most {@code maxDepth} deltas long, and the original bytes of recent bases are cached
+ * since consecutive versions keep hitting the same ones.
+ */
+@Service
+public class ResemblanceDetector {
+    private final ChunkStoreRepository chunkStoreRepository;
+    private final CompressionServiceInterface compressor;
+    private final boolean enabled;
+    private final int maxDepth;
+    private final int minChunkSize;
+    private final Cache<ChunkFingerprint, byte[]> originals;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+
+    public ResemblanceDetector(ChunkStoreRepository chunkStoreRepository, CompressionServiceInterface compressor,
+                               SimilarityProperties properties, PipelineMetrics metrics) {
+        this.chunkStoreRepository = chunkStoreRepository;
+        this.compressor = compressor;
+        this.enabled = properties.isEnabled();
+        this.maxDepth = properties.getMaxDepth();
+        this.minChunkSize = properties.getMinChunkSize();
+        this.originals = Caffeine.newBuilder()
+                .maximumWeight(properties.getBaseCacheBytes())
+                .weigher((ChunkFingerprint hash, byte[] original) -> original.length)
+                .recordStats()
+                .build();
+        metrics.cache("similarity.bases", originals);
+        metrics.gauge("similarity.lookups", lookups::sum);
+        metrics.gauge("similarity.matches", matches::sum);
+    }
+
+    /**
+     * The super-features of {@code chunk}, or null when resemblance detection is off or the chunk too small to
+     * be worth a delta.
+     */
+    public long[] sketch(ByteBuffer chunk) {
+        if (!enabled || chunk.remaining() < minChunkSize) {
+            return null;
+        }
+        return SuperFeatures.compute(chunk);
+    }
+
+    /**
+     * Whether a chunk {@code depth} deltas deep can still serve as a base, and so is worth indexing.
+     */
+    public boolean canBeBase(int depth) {
+        return depth < maxDepth;
+    }
+
+    public DeltaBase findBase(long[] superFeatures) throws IOException {
+        lookups.increment();
+        SimilarChunk similar = chunkStoreRepository.findSimilar(superFeatures, maxDepth);
+        if (similar == null) {
+            return null;
+        }
+        matches.increment();
+        return new DeltaBase(similar.getHash(), similar.getDepth(), original(similar.getHash()));
+    }
+
+    /**
+     * The original bytes of a stored chunk, resolving its delta chain.
+     */
+    public byte[] original(ChunkFingerprint hash) throws IOException {
+        byte[] cached = originals.getIfPresent(hash);
+        if (cached != null) {
+            return cached;
+        }
+        StoredChunk stored;
+        try {
+            stored = chunkStoreRepository.findChunk(hash);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (stored == null) {
+            throw new IOException("Chunk de base manquant dans le store : " + hash);
+        }
+        byte[] original = new byte[stored.getOriginalSize()];
+        decode(ByteBuffer.wrap(stored.getData()), ByteBuffer.wrap(original));
+        originals.put(hash, original);
+        return original;
+    }
+
+    /**
+     * Writes the original bytes of the remaining {@code stored} chunk at the target position and advances it,
+     * fetching the base first when the chunk is a delta.
+     */
+    public int decode(ByteBuffer stored, ByteBuffer target) throws IOException {
+        byte[] base = compressor.deltaBase(stored);
+        if (base == null) {
+            return compressor.decompress(stored, target);
+        }
+        return compressor.decompressDelta(stored, original(new ChunkFingerprint(base)), target);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.similarity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * N-transform resemblance sketch. A gear hash rolls over the chunk; at content-defined sample points, one in
+ * 32 windows, each of {@value #FEATURES} linear transforms of the hash keeps its maximum. Each super-feature
+ * hashes {@value #FEATURES_PER_SUPER} of these maxima, so two chunks sharing a super-feature very likely differ
+ * in only a few windows.
+ * <p>
+ * The super-features are persisted in the sketch index: the tables and constants below must never change.
+ */
+public final class SuperFeatures {
+    public static final int COUNT = 3;
+    private static final int FEATURES_PER_SUPER = 4;
+    private static final int FEATURES = COUNT * FEATURES_PER_SUPER;
+    // the top bits of a gear hash depend on the whole 64-byte window, the low bits only on the last bytes
+    private static final long SAMPLE_MASK = 0xF800_0000_0000_0000L;
+    private static final long[] GEAR = new long[256];
+    private static final long[] MULTIPLIERS = new long[FEATURES];
+    private static final long[] INCREMENTS = new long[FEATURES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_F00DL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+        for (int i = 0; i < FEATURES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private SuperFeatures() {
+    }
+
+    /**
+     * The {@value #COUNT} super-features of the remaining bytes of {@code chunk}, each already salted with its
+     * index so that only same-rank super-features match; null when no window was sampled.
+     */
+    public static long[] compute(ByteBuffer chunk) {
+        long[] features = new long[FEATURES];
+        Arrays.fill(features, Long.MIN_VALUE);
+        boolean sampled = false;
+        long hash = 0;
+        if (chunk.hasArray()) {
+            byte[] data = chunk.array();
+            for (int position = chunk.arrayOffset() + chunk.position(), end = chunk.arrayOffset() + chunk.limit();
+                 position < end; position++) {
+                hash = (hash << 1) + GEAR[data[position] & 0xFF];
+                if ((hash & SAMPLE_MASK) == 0) {
+                    sample(hash, features);
+                    sampled = true;
+                }
+            }
+        } else {
+            for (int position = chunk.position(), end = chunk.limit(); position < end; position++) {
+                hash = (hash << 1) + GEAR[chunk.get(position) & 0xFF];
+                if ((hash & SAMPLE_MASK) == 0) {
+                    sample(hash, features);
+                    sampled = true;
+                }
+            }
+        }
+        if (!sampled) {
+            return null;
+        }
+        long[] superFeatures = new long[COUNT];
+        for (int j = 0; j < COUNT; j++) {
+            long mixed = (j + 1) * 0x9E37_79B9_7F4A_7C15L;
+            for (int i = j * FEATURES_PER_SUPER; i < (j + 1) * FEATURES_PER_SUPER; i++) {
+                mixed = (mixed ^ features[i]) * 0xBF58_476D_1CE4_E5B9L;
+                mixed ^= mixed >>> 31;
+            }
+            superFeatures[j] = mixed;
+        }
+        return superFeatures;
+    }
+
+    private static void sample(long hash, long[] features) {
+        for (int i = 0; i < FEATURES; i++) {
+            long transformed = MULTIPLIERS[i] * hash + INCREMENTS[i];
+            if (transformed > features[i]) {
+                features[i] = transformed;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where compressed chunk payloads live. Inline storage keeps them in the {@code chunk_store.data} column;
+ * other backends store them outside the database and leave only their location in the row.
+ */
+public interface ChunkStorageInterface {
+    boolean isInline();
+
+    /**
+     * Stores {@code payloads} durably, in order, before returning their locations.
+     */
+    List<PackLocation> append(List<byte[]> payloads) throws IOException;
+
+    byte[] read(long segment, long offset, int length) throws IOException;
+}
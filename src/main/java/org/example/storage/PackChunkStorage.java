@@ -0,0 +1,227 @@
+package org.example.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.StorageProperties;
+import org.example.metrics.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Appends compressed chunks to numbered segment files and reads them back with positional reads. Only the
+ * last segment is written; once it reaches {@code segmentSize} it is sealed and a new one is started. Bytes
+ * past the last committed chunk, left by a crash or a rolled-back batch, are never referenced and are
+ * reclaimed by {@link PackCompactor}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "pack")
+public class PackChunkStorage implements ChunkStorageInterface {
+    private static final Logger logger = Logger.getLogger(PackChunkStorage.class.getName());
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".pack";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean syncWrites;
+    private final Map<Long, FileChannel> readers = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private volatile FileChannel active;
+    private volatile long activeSegment;
+
+    @Autowired
+    public PackChunkStorage(StorageProperties properties, PipelineMetrics metrics) throws IOException {
+        this(Path.of(properties.getPackDirectory()), properties.getSegmentSize(), properties.isSyncWrites());
+        metrics.gauge("storage.segments", () -> segments().size());
+        metrics.gauge("storage.active-segment-bytes", this::activeSize);
+    }
+
+    public PackChunkStorage(Path directory, long segmentSize, boolean syncWrites) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        Files.createDirectories(directory);
+        List<Long> existing = segments();
+        long last = existing.isEmpty() ? 1 : existing.get(existing.size() - 1);
+        openActive(last);
+        if (active.size() >= segmentSize) {
+            roll();
+        }
+        logger.info("📦 Segments de chunks dans " + directory + " : " + existing.size() + " existants, segment actif "
+                + activeSegment);
+    }
+
+    @Override
+    public boolean isInline() {
+        return false;
+    }
+
+    @Override
+    public List<PackLocation> append(List<byte[]> payloads) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[payloads.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(payloads.get(i));
+            total += buffers[i].remaining();
+        }
+        List<PackLocation> locations = new ArrayList<>(buffers.length);
+        synchronized (appendLock) {
+            long position = active.size();
+            if (position > 0 && position + total > segmentSize) {
+                roll();
+                position = 0;
+            }
+            for (byte[] payload : payloads) {
+                locations.add(new PackLocation(activeSegment, position, payload.length));
+                position += payload.length;
+            }
+            try {
+                long remaining = total;
+                while (remaining > 0) {
+                    remaining -= active.write(buffers);
+                }
+                if (syncWrites) {
+                    active.force(false);
+                }
+            } catch (ClosedChannelException e) {
+                // an interrupted writer closes the channel; the partial write is never referenced
+                openActive(activeSegment);
+                throw e;
+            }
+        }
+        return locations;
+    }
+
+    @Override
+    public byte[] read(long segment, long offset, int length) throws IOException {
+        byte[] data = new byte[length];
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = reader(segment);
+            try {
+                ByteBuffer target = ByteBuffer.wrap(data);
+                while (target.hasRemaining()) {
+                    if (channel.read(target, offset + target.position()) < 0) {
+                        throw new EOFException("Segment " + segment + " tronqué à l'offset " + offset);
+                    }
+                }
+                return data;
+            } catch (ClosedChannelException e) {
+                // the channel is shared: an interrupted reader closes it for everyone, so reopen it once
+                readers.remove(segment, channel);
+                if (attempt > 0 || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public long activeSegment() {
+        return activeSegment;
+    }
+
+    /**
+     * Segment ids in ascending order, the active one included.
+     */
+    public List<Long> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            logger.warning("⚠️ Impossible de lister les segments de " + directory + " : " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    public long size(long segment) throws IOException {
+        return Files.size(path(segment));
+    }
+
+    public long lastModified(long segment) throws IOException {
+        return Files.getLastModifiedTime(path(segment)).toMillis();
+    }
+
+    /**
+     * Deletes a sealed segment once nothing references it any more.
+     */
+    public void delete(long segment) throws IOException {
+        if (segment == activeSegment) {
+            throw new IllegalArgumentException("Le segment actif ne peut pas être supprimé : " + segment);
+        }
+        FileChannel channel = readers.remove(segment);
+        if (channel != null) {
+            channel.close();
+        }
+        Files.deleteIfExists(path(segment));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            active.close();
+        }
+        for (FileChannel channel : readers.values()) {
+            channel.close();
+        }
+        readers.clear();
+    }
+
+    private long activeSize() {
+        try {
+            return active.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private FileChannel reader(long segment) throws IOException {
+        FileChannel channel = readers.get(segment);
+        if (channel != null) {
+            return channel;
+        }
+        Path path = path(segment);
+        if (!Files.exists(path)) {
+            throw new IOException("Segment introuvable : " + path);
+        }
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.READ);
+        FileChannel existing = readers.putIfAbsent(segment, opened);
+        if (existing != null) {
+            opened.close();
+            return existing;
+        }
+        return opened;
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        openActive(activeSegment + 1);
+        logger.info("📦 Nouveau segment actif : " + activeSegment);
+    }
+
+    private void openActive(long segment) throws IOException {
+        active = FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        activeSegment = segment;
+    }
+
+    private Path path(long segment) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX));
+    }
+}
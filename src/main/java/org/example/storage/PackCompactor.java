@@ -0,0 +1,198 @@
+package org.example.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.StorageProperties;
+import org.example.deduplication.DuplicateDetectorInterface;
+import org.example.metrics.PipelineMetrics;
+import org.example.model.ChunkFingerprint;
+import org.example.repository.ChunkStoreRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Rewrites sealed segments whose live bytes fell under {@code compactionLiveRatio}: their referenced chunks
+ * are copied to the active segment, then, taking the ingest gate once for the whole pass, the rows are moved
+ * and the unreferenced ones deleted and forgotten by the duplicate detector. Copies of a postponed segment are
+ * kept for the next pass, and the segments they landed in are left alone until then. A retired file is only
+ * deleted once every payload read that started before its retirement has ended, since those reads may still
+ * locate chunks in it, however long a restore or range download lasts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "pack")
+public class PackCompactor {
+    private static final Logger logger = Logger.getLogger(PackCompactor.class.getName());
+    private static final int COPY_BATCH_BYTES = 8 * 1024 * 1024;
+    private static final long GATE_TIMEOUT_SECONDS = 10;
+
+    private final PackChunkStorage storage;
+    private final ChunkStoreRepository repository;
+    private final DuplicateDetectorInterface deduplicator;
+    private final double liveRatio;
+    private final ScheduledExecutorService scheduler;
+    // retired segments not deleted yet, with their retirement number
+    private final Map<Long, Long> retired = new LinkedHashMap<>();
+    // chunks copied out of segments whose retirement is still pending, so a postponed pass never copies them twice
+    private final Map<Long, Map<ChunkFingerprint, PackLocation>> copied = new HashMap<>();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    public PackCompactor(PackChunkStorage storage, ChunkStoreRepository repository, DuplicateDetectorInterface deduplicator,
+                         StorageProperties properties, PipelineMetrics metrics) {
+        this.storage = storage;
+        this.repository = repository;
+        this.deduplicator = deduplicator;
+        this.liveRatio = properties.getCompactionLiveRatio();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pack-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCompactionIntervalSeconds();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.SECONDS);
+        }
+        metrics.gauge("storage.compaction.reclaimed-bytes", reclaimedBytes::get);
+    }
+
+    /**
+     * One compaction pass; returns the number of segments retired.
+     */
+    public synchronized int compact() throws IOException, InterruptedException {
+        deleteRetired();
+
+        List<Long> segments = storage.segments();
+        copied.keySet().retainAll(segments);
+        Set<Long> holdingCopies = new HashSet<>();
+        copied.values().forEach(relocated -> relocated.values().forEach(location -> holdingCopies.add(location.getSegment())));
+        Map<Long, Long> usage = repository.segmentUsage();
+        long active = storage.activeSegment();
+        List<Long> candidates = new ArrayList<>();
+        for (long segment : segments) {
+            if (segment >= active || holdingCopies.contains(segment) || retired.containsKey(segment)) {
+                continue;
+            }
+            long size = storage.size(segment);
+            long live = usage.getOrDefault(segment, 0L);
+            if (copied.containsKey(segment) || size == 0 || (double) live / size < liveRatio) {
+                candidates.add(segment);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        for (long segment : candidates) {
+            copyLiveChunks(segment, copied.computeIfAbsent(segment, key -> new HashMap<>()));
+        }
+        Map<Long, Long> retirements = new HashMap<>();
+        Map<Long, List<ChunkFingerprint>> deleted = repository.withoutIngest(GATE_TIMEOUT_SECONDS, TimeUnit.SECONDS, () -> {
+            Map<Long, List<ChunkFingerprint>> removed = new LinkedHashMap<>();
+            for (long segment : candidates) {
+                List<ChunkFingerprint> hashes = repository.retireSegment(segment, copied.get(segment));
+                if (hashes != null) {
+                    hashes.forEach(deduplicator::forget);
+                    removed.put(segment, hashes);
+                    retirements.put(segment, repository.retiredSegments());
+                }
+            }
+            return removed;
+        });
+        if (deleted == null) {
+            // the copies are kept for the next pass, which only copies chunks revived in between
+            logger.info("⏳ Compaction de " + candidates.size() + " segments reportée : ingestion en cours");
+            return 0;
+        }
+        for (long segment : candidates) {
+            List<ChunkFingerprint> hashes = deleted.get(segment);
+            if (hashes == null) {
+                logger.info("⏳ Compaction du segment " + segment + " reportée : chunk à nouveau référencé");
+                continue;
+            }
+            Map<ChunkFingerprint, PackLocation> relocated = copied.remove(segment);
+            long size = storage.size(segment);
+            long moved = relocated.values().stream().mapToLong(PackLocation::getLength).sum();
+            retired.put(segment, retirements.get(segment));
+            reclaimedBytes.addAndGet(size - moved);
+            logger.info("🧹 Segment " + segment + " compacté : " + relocated.size() + " chunks déplacés, " + hashes.size()
+                    + " supprimés, " + (size - moved) + " octets récupérés en " + (System.currentTimeMillis() - start) + " ms");
+        }
+        deleteRetired();
+        return deleted.size();
+    }
+
+    private void deleteRetired() throws IOException {
+        Iterator<Map.Entry<Long, Long>> iterator = retired.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> segment = iterator.next();
+            if (!repository.isReadingRetiredSegments(segment.getValue())) {
+                storage.delete(segment.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Copies the live chunks of {@code segment} not already in {@code relocated} to the active segment.
+     */
+    private void copyLiveChunks(long segment, Map<ChunkFingerprint, PackLocation> relocated) throws IOException {
+        List<ChunkFingerprint> hashes = new ArrayList<>();
+        List<byte[]> payloads = new ArrayList<>();
+        long[] pending = {0};
+        repository.forEachLiveChunk(segment, (hash, offset, length) -> {
+            if (relocated.containsKey(hash)) {
+                return;
+            }
+            hashes.add(hash);
+            payloads.add(storage.read(segment, offset, length));
+            pending[0] += length;
+            if (pending[0] >= COPY_BATCH_BYTES) {
+                copy(hashes, payloads, relocated);
+                pending[0] = 0;
+            }
+        });
+        copy(hashes, payloads, relocated);
+    }
+
+    private void copy(List<ChunkFingerprint> hashes, List<byte[]> payloads, Map<ChunkFingerprint, PackLocation> relocated)
+            throws IOException {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        List<PackLocation> locations = storage.append(payloads);
+        for (int i = 0; i < hashes.size(); i++) {
+            relocated.put(hashes.get(i), locations.get(i));
+        }
+        hashes.clear();
+        payloads.clear();
+    }
+
+    private void runSafely() {
+        try {
+            compact();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("⚠️ Compaction des segments interrompue : " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
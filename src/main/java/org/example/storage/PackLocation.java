@@ -0,0 +1,28 @@
+package org.example.storage;
+
+/**
+ * Where a chunk payload sits inside the pack segments.
+ */
+public class PackLocation {
+    private final long segment;
+    private final long offset;
+    private final int length;
+
+    public PackLocation(long segment, long offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public long getSegment() {
+        return segment;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
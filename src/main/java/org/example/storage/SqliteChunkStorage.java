@@ -0,0 +1,30 @@
+package org.example.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Payloads stay as BLOBs in {@code chunk_store}, the original layout.
+ */
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "sqlite", matchIfMissing = true)
+public class SqliteChunkStorage implements ChunkStorageInterface {
+
+    @Override
+    public boolean isInline() {
+        return true;
+    }
+
+    @Override
+    public List<PackLocation> append(List<byte[]> payloads) {
+        throw new UnsupportedOperationException("Le stockage SQLite garde les chunks dans la base");
+    }
+
+    @Override
+    public byte[] read(long segment, long offset, int length) throws IOException {
+        throw new IOException("Chunk stocké dans le segment " + segment + " : activer storage.backend=pack pour le lire");
+    }
+}
@@ -1,18 +1,47 @@
 package org.example.util;
 
-public class RabinFingerprint {
+/**
+ * Rabin fingerprint over a sliding window of {@link #WINDOW_SIZE} bytes. The digest only depends on the
+ * bytes in the window, so boundaries found with it are stable when content is inserted or shifted.
+ */
+public final class RabinFingerprint {
+    public static final int WINDOW_SIZE = 64;
+
     private static final long POLYNOMIAL = 0x3DA3358B4DC173L;
-    private long fingerprint = 0;
+    private static final int DEGREE = 63 - Long.numberOfLeadingZeros(POLYNOMIAL);
+    private static final int SHIFT = DEGREE - 8;
+    private static final long[] MOD_TABLE = new long[256];
+    private static final long[] OUT_TABLE = new long[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            MOD_TABLE[b] = mod((long) b << DEGREE) | (long) b << DEGREE;
+        }
+        for (int b = 0; b < 256; b++) {
+            long digest = append(0, (byte) b);
+            for (int i = 1; i < WINDOW_SIZE; i++) {
+                digest = append(digest, (byte) 0);
+            }
+            OUT_TABLE[b] = digest;
+        }
+    }
+
+    private RabinFingerprint() {
+    }
 
-    public void update(int b) {
-        fingerprint = (fingerprint << 1) ^ POLYNOMIAL ^ b;
+    public static long append(long digest, byte in) {
+        return (digest << 8 | in & 0xFF) ^ MOD_TABLE[(int) (digest >>> SHIFT)];
     }
 
-    public boolean isBoundary() {
-        return (fingerprint & 0xFFF) == 0;
+    public static long slide(long digest, byte out, byte in) {
+        return append(digest ^ OUT_TABLE[out & 0xFF], in);
     }
 
-    public void reset() {
-        fingerprint = 0;
+    private static long mod(long value) {
+        int degree;
+        while ((degree = 63 - Long.numberOfLeadingZeros(value)) >= DEGREE) {
+            value ^= POLYNOMIAL << (degree - DEGREE);
+        }
+        return value;
     }
-}
\ No newline at end of file
+}
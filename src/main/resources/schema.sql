@@ -1,7 +1,70 @@
-CREATE TABLE IF NOT EXISTS chunks (
+CREATE TABLE IF NOT EXISTS chunk_store (
+                                      hash BLOB PRIMARY KEY,
+                                      data BLOB,
+                                      segment_id INTEGER,
+                                      segment_offset INTEGER,
+                                      original_size INTEGER NOT NULL,
+                                      compressed_size INTEGER NOT NULL,
+                                      codec INTEGER NOT NULL,
+                                      ref_count INTEGER NOT NULL,
+                                      base_hash BLOB,
+                                      delta_depth INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS chunk_feature (
+                                      feature INTEGER NOT NULL,
+                                      chunk_hash BLOB NOT NULL,
+                                      PRIMARY KEY (feature, chunk_hash)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS file_manifest (
                                       id INTEGER PRIMARY KEY AUTOINCREMENT,
-                                      hash TEXT NOT NULL UNIQUE,
                                       file_path TEXT NOT NULL,
+                                      staged INTEGER NOT NULL DEFAULT 0,
                                       order_index INTEGER NOT NULL,
-                                      data BLOB NOT NULL
-);
\ No newline at end of file
+                                      chunk_hash BLOB NOT NULL,
+                                      chunk_offset INTEGER NOT NULL,
+                                      length INTEGER NOT NULL,
+                                      UNIQUE (file_path, staged, order_index)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chunk_store_segment ON chunk_store (segment_id) WHERE segment_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_chunk_feature_hash ON chunk_feature (chunk_hash);
+CREATE INDEX IF NOT EXISTS idx_file_manifest_chunk_hash ON file_manifest (chunk_hash);
+CREATE INDEX IF NOT EXISTS idx_file_manifest_path_offset ON file_manifest (file_path, staged, chunk_offset);
+
+CREATE TABLE IF NOT EXISTS compression_dictionary (
+                                      id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                      category TEXT NOT NULL,
+                                      data BLOB NOT NULL,
+                                      created_at INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS file_version (
+                                      file_path TEXT PRIMARY KEY,
+                                      size INTEGER NOT NULL,
+                                      modified_at INTEGER NOT NULL,
+                                      version INTEGER NOT NULL,
+                                      ingested_at INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ingest_job (
+                                      id TEXT PRIMARY KEY,
+                                      source TEXT NOT NULL,
+                                      status TEXT NOT NULL,
+                                      files_total INTEGER NOT NULL DEFAULT 0,
+                                      files_done INTEGER NOT NULL DEFAULT 0,
+                                      files_failed INTEGER NOT NULL DEFAULT 0,
+                                      bytes_total INTEGER NOT NULL DEFAULT 0,
+                                      bytes_done INTEGER NOT NULL DEFAULT 0,
+                                      last_error TEXT,
+                                      created_at INTEGER NOT NULL,
+                                      updated_at INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ingest_job_file (
+                                      job_id TEXT NOT NULL,
+                                      file_path TEXT NOT NULL,
+                                      size INTEGER NOT NULL,
+                                      PRIMARY KEY (job_id, file_path)
+);
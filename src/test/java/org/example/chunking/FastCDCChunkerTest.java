@@ -0,0 +1,117 @@
+package org.example.chunking;
+
+import org.example.config.ChunkingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FastCDCChunkerTest {
+
+  @Test
+  void testChunkData_RespectsConfiguredSizes() {
+    ChunkingProperties properties = new ChunkingProperties();
+    properties.setMinSize(1024);
+    properties.setAvgSize(4096);
+    properties.setMaxSize(8192);
+    FastCDCChunker chunker = new FastCDCChunker(properties);
+    byte[] data = randomBytes(4 * 1024 * 1024, 1);
+
+    List<byte[]> chunks = chunker.chunkData(data);
+
+    int total = 0;
+    for (int i = 0; i < chunks.size(); i++) {
+      assertTrue(chunks.get(i).length <= 8192);
+      if (i < chunks.size() - 1) {
+        assertTrue(chunks.get(i).length > 1024);
+      }
+      total += chunks.get(i).length;
+    }
+    assertEquals(data.length, total);
+    assertTrue(data.length / chunks.size() > 3 * 1024 && data.length / chunks.size() < 5 * 1024);
+  }
+
+  @Test
+  void testChunkStreamAndBuffer_MatchChunkData() throws Exception {
+    FastCDCChunker chunker = new FastCDCChunker();
+    byte[] data = randomBytes(5 * 1024 * 1024 + 77, 2);
+    List<Integer> expected = chunker.chunkData(data).stream().map(chunk -> chunk.length).toList();
+
+    List<Integer> streamed = new ArrayList<>();
+    chunker.chunkStream(new ByteArrayInputStream(data), data.length, chunk -> streamed.add(chunk.length));
+
+    List<Integer> viewed = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    int consumed = chunker.chunkBuffer(buffer.limit(3 * 1024 * 1024), 0, false, view -> viewed.add(view.getLength()));
+    chunker.chunkBuffer(buffer.limit(data.length).position(consumed), consumed, true, view -> viewed.add(view.getLength()));
+
+    assertEquals(expected, streamed);
+    assertEquals(expected, viewed);
+  }
+
+  @Test
+  void testVectorizedScan_FindsSameBoundaries() {
+    ChunkingProperties properties = new ChunkingProperties();
+    properties.setVectorized(true);
+    FastCDCChunker vectorized = new FastCDCChunker(properties);
+    assumeTrue(vectorized.isVectorized(), "only built by the vector profile");
+    FastCDCChunker scalar = new FastCDCChunker();
+    byte[] random = randomBytes(8 * 1024 * 1024 + 5, 3);
+    byte[] repetitive = new byte[2 * 1024 * 1024];
+    for (int i = 0; i < repetitive.length; i++) {
+      repetitive[i] = (byte) (i % 251 == 0 ? i >> 8 : 0);
+    }
+
+    for (byte[] data : List.of(random, repetitive)) {
+      List<Integer> expected = scalar.chunkData(data).stream().map(chunk -> chunk.length).toList();
+      List<Integer> actual = vectorized.chunkData(data).stream().map(chunk -> chunk.length).toList();
+      assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  void testParallelChunking_ResyncsToSequentialBoundaries() throws Exception {
+    FastCDCChunker chunker = new FastCDCChunker();
+    byte[] random = randomBytes(6 * 1024 * 1024 + 11, 4);
+    byte[] zeros = new byte[3 * 1024 * 1024];
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (byte[] data : List.of(random, zeros)) {
+        for (boolean endOfInput : new boolean[]{true, false}) {
+          List<Long> expected = new ArrayList<>();
+          int consumed = chunker.chunkBuffer(ByteBuffer.wrap(data), 100, endOfInput, view -> expected.add(view.getOffset()));
+
+          List<Long> actual = new ArrayList<>();
+          int parallelConsumed = chunker.chunkBufferParallel(ByteBuffer.wrap(data), 100, endOfInput,
+              view -> actual.add(view.getOffset()), pool, 256 * 1024);
+
+          assertEquals(expected, actual);
+          assertEquals(consumed, parallelConsumed);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testConstructor_RejectsInvalidNormalizationLevel() {
+    ChunkingProperties properties = new ChunkingProperties();
+    properties.setNormalizationLevel(4);
+
+    assertThrows(IllegalArgumentException.class, () -> new FastCDCChunker(properties));
+  }
+
+  private static byte[] randomBytes(int size, long seed) {
+    byte[] data = new byte[size];
+    new Random(seed).nextBytes(data);
+    return data;
+  }
+}
@@ -0,0 +1,73 @@
+package org.example.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RabinChunkerTest {
+
+  private final RabinChunker chunker = new RabinChunker();
+
+  @Test
+  void testChunkData_EnforcesBoundsAndCoversInput() throws Exception {
+    byte[] data = randomBytes(4 * 1024 * 1024, 1);
+
+    List<byte[]> chunks = chunker.chunkData(data);
+
+    ByteArrayOutputStream joined = new ByteArrayOutputStream();
+    for (int i = 0; i < chunks.size(); i++) {
+      byte[] chunk = chunks.get(i);
+      assertTrue(chunk.length <= 16384);
+      if (i < chunks.size() - 1) {
+        assertTrue(chunk.length >= 2048);
+      }
+      joined.write(chunk);
+    }
+    assertArrayEquals(data, joined.toByteArray());
+    assertTrue(data.length / chunks.size() > 6 * 1024 && data.length / chunks.size() < 11 * 1024);
+  }
+
+  @Test
+  void testChunkStreamAndBuffer_MatchChunkData() throws Exception {
+    byte[] data = randomBytes(3 * 1024 * 1024 + 123, 2);
+    List<Integer> expected = chunker.chunkData(data).stream().map(chunk -> chunk.length).toList();
+
+    List<Integer> streamed = new ArrayList<>();
+    chunker.chunkStream(new ByteArrayInputStream(data), chunk -> streamed.add(chunk.length));
+
+    List<Integer> viewed = new ArrayList<>();
+    chunker.chunkBuffer(ByteBuffer.wrap(data), 0, true, view -> viewed.add(view.getLength()));
+
+    assertEquals(expected, streamed);
+    assertEquals(expected, viewed);
+  }
+
+  @Test
+  void testChunkData_BoundariesSurviveInsertion() {
+    byte[] data = randomBytes(2 * 1024 * 1024, 3);
+    byte[] shifted = new byte[data.length + 7];
+    System.arraycopy(data, 0, shifted, 7, data.length);
+
+    Set<ByteBuffer> original = new HashSet<>();
+    chunker.chunkData(data).forEach(chunk -> original.add(ByteBuffer.wrap(chunk)));
+    List<byte[]> shiftedChunks = chunker.chunkData(shifted);
+    long shared = shiftedChunks.stream().filter(chunk -> original.contains(ByteBuffer.wrap(chunk))).count();
+
+    assertTrue(shared >= shiftedChunks.size() - 3);
+  }
+
+  private static byte[] randomBytes(int size, long seed) {
+    byte[] data = new byte[size];
+    new Random(seed).nextBytes(data);
+    return data;
+  }
+}
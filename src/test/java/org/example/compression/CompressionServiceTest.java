@@ -0,0 +1,137 @@
+package org.example.compression;
+
+import org.example.config.CompressionProperties;
+import org.example.repository.DictionaryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CompressionServiceTest {
+
+  private static final byte[] TEXT = "le chunk se répète, le chunk se répète. ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testCompress_SelectsCodecAndRoundTrips() throws Exception {
+    CompressionProperties properties = new CompressionProperties();
+    properties.setHotPaths(List.of("**/hot/**"));
+    CompressionService service = new CompressionService(properties, null);
+    byte[] random = new byte[8192];
+    new Random(7).nextBytes(random);
+
+    byte[] small = service.compress(new byte[]{1, 2, 3});
+    byte[] cold = service.compress(TEXT);
+    byte[] hot = service.compress(ByteBuffer.wrap(TEXT), service.hintFor(Path.of("/data/hot/file.log")));
+    byte[] noisy = service.compress(random);
+
+    assertEquals(Codec.NONE, Codec.fromId(small[0]));
+    assertEquals(Codec.ZSTD, Codec.fromId(cold[0]));
+    assertEquals(Codec.LZ4, Codec.fromId(hot[0]));
+    assertEquals(Codec.NONE, Codec.fromId(noisy[0]));
+    assertFalse(service.hintFor(Path.of("/data/cold/file.log")).isHot());
+
+    assertArrayEquals(new byte[]{1, 2, 3}, service.decompress(small));
+    assertArrayEquals(TEXT, service.decompress(cold));
+    assertArrayEquals(TEXT, service.decompress(hot, TEXT.length));
+    assertArrayEquals(random, service.decompress(noisy, random.length));
+  }
+
+  @Test
+  void testCompress_TrainsDictionaryForSmallChunks() throws Exception {
+    CompressionProperties properties = new CompressionProperties();
+    properties.setDictionarySize(4096);
+    properties.setDictionarySampleSize(64 * 1024);
+    DictionaryRepository repository = mock(DictionaryRepository.class);
+    when(repository.save(eq("log"), any(byte[].class))).thenReturn(7);
+    CompressionService service = new CompressionService(properties, new DictionaryRegistry(properties, repository));
+    CompressionHint hint = service.hintFor(Path.of("/var/app/server.LOG"));
+    Random random = new Random(3);
+
+    byte[] line = null;
+    byte[] stored = null;
+    for (int i = 0; i < 2_000; i++) {
+      line = ("2024-05-0" + random.nextInt(10) + " INFO [worker-" + random.nextInt(16) + "] chunk " + random.nextInt()
+          + " stocké dans le magasin, ratio " + random.nextInt(100) + "%\n").getBytes(StandardCharsets.UTF_8);
+      stored = service.compress(line, hint);
+    }
+
+    assertEquals("log", hint.getCategory());
+    verify(repository).save(eq("log"), any(byte[].class));
+    assertEquals(Codec.ZSTD_DICT, Codec.fromId(stored[0]));
+    assertTrue(stored.length < line.length);
+    assertArrayEquals(line, service.decompress(stored));
+    assertArrayEquals(line, service.decompress(stored, line.length));
+  }
+
+  @Test
+  void testCompress_DirectBufferMatchesHeapPayload() throws Exception {
+    CompressionService service = new CompressionService();
+    ByteBuffer direct = ByteBuffer.allocateDirect(TEXT.length + 10);
+    direct.position(10);
+    direct.put(TEXT).position(10);
+
+    byte[] stored = service.compress(direct);
+
+    assertArrayEquals(service.compress(TEXT), stored);
+    assertEquals(10, direct.position());
+  }
+
+  @Test
+  void testCompress_BufferToBufferRoundTrips() throws Exception {
+    CompressionService service = new CompressionService();
+    ByteBuffer source = ByteBuffer.allocateDirect(TEXT.length).put(TEXT).flip();
+    ByteBuffer stored = ByteBuffer.allocateDirect(service.maxStoredLength(TEXT.length));
+    ByteBuffer restored = ByteBuffer.allocateDirect(TEXT.length);
+
+    int size = service.compress(source, stored, CompressionHint.DEFAULT);
+    stored.flip();
+    byte[] heapStored = new byte[size];
+    stored.get(0, heapStored);
+
+    assertEquals(size, stored.remaining());
+    assertEquals(TEXT.length, service.originalLength(stored));
+    assertEquals(TEXT.length, service.decompress(ByteBuffer.wrap(heapStored), restored));
+    byte[] copy = new byte[TEXT.length];
+    restored.flip().get(copy);
+    assertArrayEquals(TEXT, copy);
+    assertArrayEquals(TEXT, service.decompress(heapStored));
+    assertEquals(0, source.position());
+  }
+
+  @Test
+  void testCompressDelta_RoundTripsAgainstBaseAndBeatsPlainZstd() throws Exception {
+    CompressionService service = new CompressionService();
+    byte[] base = new byte[8192];
+    new Random(3).nextBytes(base);
+    byte[] edited = base.clone();
+    edited[100] ^= 1;
+    edited[5000] ^= 1;
+    byte[] baseHash = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    byte[] delta = service.compressDelta(ByteBuffer.wrap(edited), base, baseHash);
+
+    assertEquals(Codec.DELTA.id(), delta[0]);
+    assertTrue(delta.length < 200, "delta de " + delta.length + " octets");
+    assertArrayEquals(baseHash, service.deltaBase(ByteBuffer.wrap(delta)));
+    assertNull(service.deltaBase(ByteBuffer.wrap(service.compress(edited))));
+    assertEquals(edited.length, service.originalLength(ByteBuffer.wrap(delta)));
+    ByteBuffer restored = ByteBuffer.allocateDirect(edited.length);
+    assertEquals(edited.length, service.decompressDelta(ByteBuffer.wrap(delta), base, restored));
+    byte[] copy = new byte[edited.length];
+    restored.flip().get(copy);
+    assertArrayEquals(edited, copy);
+    assertThrows(IllegalStateException.class, () -> service.decompress(delta));
+  }
+
+  @Test
+  void testDecompress_RejectsUnknownCodec() {
+    assertThrows(IllegalArgumentException.class, () -> new CompressionService().decompress(new byte[]{9, 1}));
+  }
+}
@@ -0,0 +1,78 @@
+package org.example.deduplication;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashIndexTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testAddIfAbsent_GrowsAndKeepsEveryHash() {
+    HashIndex index = HashIndex.inMemory(16);
+
+    for (long i = -5_000; i < 5_000; i++) {
+      assertTrue(index.addIfAbsent(i * 0x9E3779B97F4A7C15L));
+    }
+
+    assertEquals(10_000, index.size());
+    assertTrue(index.capacity() >= 10_000 / 0.7);
+    assertFalse(index.addIfAbsent(0L));
+    assertTrue(index.contains(42 * 0x9E3779B97F4A7C15L));
+    assertFalse(index.contains(123_456_789L));
+  }
+
+  @Test
+  void testRemove_KeepsCollidingProbeChainsReachable() {
+    HashIndex index = HashIndex.inMemory(1 << 12);
+    for (long i = 1; i <= 2_000; i++) {
+      index.addIfAbsent(i * 0x9E3779B97F4A7C15L);
+    }
+
+    for (long i = 1; i <= 2_000; i += 2) {
+      assertTrue(index.remove(i * 0x9E3779B97F4A7C15L));
+    }
+
+    assertEquals(1_000, index.size());
+    assertFalse(index.remove(1 * 0x9E3779B97F4A7C15L));
+    for (long i = 1; i <= 2_000; i++) {
+      assertEquals(i % 2 == 0, index.contains(i * 0x9E3779B97F4A7C15L));
+    }
+    assertTrue(index.addIfAbsent(3 * 0x9E3779B97F4A7C15L));
+  }
+
+  @Test
+  void testOpen_ReloadsAfterCleanClose() throws Exception {
+    Path file = tempDir.resolve("dedup.idx");
+    try (HashIndex index = HashIndex.open(file, 1_000)) {
+      assertTrue(index.needsRebuild());
+      for (long i = 1; i <= 3_000; i++) {
+        index.addIfAbsent(i);
+      }
+    }
+
+    try (HashIndex reopened = HashIndex.open(file, 1_000)) {
+      assertFalse(reopened.needsRebuild());
+      assertEquals(3_000, reopened.size());
+      assertTrue(reopened.contains(2_999));
+      assertFalse(reopened.contains(3_001));
+    }
+  }
+
+  @Test
+  void testOpen_RequestsRebuildAfterUncleanShutdown() throws Exception {
+    Path file = tempDir.resolve("dedup.idx");
+    HashIndex index = HashIndex.open(file, 1_000);
+    index.addIfAbsent(7L);
+
+    try (HashIndex reopened = HashIndex.open(file, 1_000)) {
+      assertTrue(reopened.needsRebuild());
+      assertFalse(reopened.contains(7L));
+    }
+  }
+}
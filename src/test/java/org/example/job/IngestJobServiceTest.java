@@ -0,0 +1,112 @@
+package org.example.job;
+
+import org.example.config.JobProperties;
+import org.example.metrics.PipelineMetrics;
+import org.example.repository.IngestJobRepository;
+import org.example.service.ParallelIngestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjLongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IngestJobServiceTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ParallelIngestService ingestService;
+  private IngestJobRepository repository;
+  private IngestJobService jobService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ingestService = mock(ParallelIngestService.class);
+    repository = mock(IngestJobRepository.class);
+    when(ingestService.submit(anyString())).thenReturn(CompletableFuture.completedFuture(0));
+    jobService = new IngestJobService(ingestService, repository, new JobProperties(), new PipelineMetrics());
+
+    Files.createDirectories(tempDir.resolve("a/b"));
+    Files.write(tempDir.resolve("a/large.bin"), new byte[300]);
+    Files.write(tempDir.resolve("a/b/small.bin"), new byte[100]);
+    Files.write(tempDir.resolve("a/notes.txt"), new byte[50]);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jobService.shutdown();
+  }
+
+  @Test
+  void testSubmit_GlobIngestsMatchingFilesAndCheckpointsThem() throws Exception {
+    JobProgress started = jobService.submit(tempDir + "/**/*.bin");
+
+    JobProgress finished = awaitFinish();
+    assertEquals(started.getId(), finished.getId());
+    assertEquals(JobStatus.COMPLETED, finished.getStatus());
+    assertEquals(2, finished.getFilesTotal());
+    assertEquals(2, finished.getFilesDone());
+    assertEquals(400, finished.getBytesDone());
+    verify(ingestService).submit(tempDir.resolve("a/large.bin").toString());
+    verify(ingestService).submit(tempDir.resolve("a/b/small.bin").toString());
+    verify(ingestService, never()).submit(tempDir.resolve("a/notes.txt").toString());
+    verify(repository).markFileDone(started.getId(), tempDir.resolve("a/b/small.bin").toString(), 100);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testResumeInterrupted_SkipsCheckpointedFiles() throws Exception {
+    String done = tempDir.resolve("a/large.bin").toString();
+    when(repository.findByStatus(JobStatus.RUNNING)).thenReturn(List.of(
+        new JobProgress("job-1", tempDir.toString(), JobStatus.RUNNING, false, 0, 0, 0, 0, 0, 0, null, null)));
+    doAnswer(invocation -> {
+      ((ObjLongConsumer<String>) invocation.getArgument(1)).accept(done, 300);
+      return null;
+    }).when(repository).forEachDoneFile(eq("job-1"), any());
+
+    jobService.resumeInterrupted();
+
+    JobProgress finished = awaitFinish();
+    assertEquals(3, finished.getFilesTotal());
+    assertEquals(3, finished.getFilesDone());
+    assertEquals(450, finished.getBytesDone());
+    verify(ingestService, never()).submit(done);
+    verify(ingestService, times(2)).submit(anyString());
+  }
+
+  @Test
+  void testSubmit_RejectsMissingSourceAndRelativeGlob() {
+    assertThrows(IllegalArgumentException.class, () -> jobService.submit(tempDir.resolve("missing").toString()));
+    assertThrows(IllegalArgumentException.class, () -> jobService.submit("relative/*.bin"));
+    verifyNoInteractions(repository);
+  }
+
+  @Test
+  void testPendingFiles_SmallestFirst() {
+    IngestJob job = new IngestJob("job", "source", tempDir, null, Map.of(), true);
+    job.discovered(tempDir.resolve("big"), 1_000);
+    job.discovered(tempDir.resolve("tiny"), 10);
+    job.discovered(tempDir.resolve("medium"), 500);
+
+    assertEquals(tempDir.resolve("tiny"), job.pending().poll().path());
+    assertEquals(tempDir.resolve("medium"), job.pending().poll().path());
+    assertEquals(tempDir.resolve("big"), job.pending().poll().path());
+  }
+
+  private JobProgress awaitFinish() {
+    ArgumentCaptor<JobProgress> progress = ArgumentCaptor.forClass(JobProgress.class);
+    verify(repository, timeout(5_000)).finish(progress.capture());
+    return progress.getValue();
+  }
+}
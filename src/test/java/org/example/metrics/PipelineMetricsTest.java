@@ -0,0 +1,54 @@
+package org.example.metrics;
+
+import org.example.compression.Codec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+
+  @Test
+  void testLog2Histogram_BucketsByPowerOfTwo() {
+    Log2Histogram histogram = new Log2Histogram();
+    for (int i = 0; i < 90; i++) {
+      histogram.record(3_000);
+    }
+    for (int i = 0; i < 10; i++) {
+      histogram.record(9_000);
+    }
+
+    assertEquals(100, histogram.count());
+    assertEquals(Map.of(4_096L, 90L, 16_384L, 10L), histogram.buckets());
+    assertEquals(4_096, histogram.percentile(50));
+    assertEquals(4_096, histogram.percentile(90));
+    assertEquals(16_384, histogram.percentile(99));
+    assertEquals(0, new Log2Histogram().percentile(50));
+  }
+
+  @Test
+  void testSnapshot_AggregatesChunksCodecsAndGauges() {
+    PipelineMetrics metrics = new PipelineMetrics();
+    metrics.recordChunk(8_000, false);
+    metrics.recordChunk(8_000, true);
+    metrics.recordChunk(2_000, false);
+    metrics.recordStored(Codec.ZSTD.id(), 8_000, 2_000);
+    metrics.recordStored(Codec.NONE.id(), 2_000, 2_001);
+    metrics.recordStored((byte) 99, 1, 1);
+    metrics.timer(PipelineMetrics.Stage.HASH).record(1_500);
+    metrics.gauge("queue", () -> 7);
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+
+    assertEquals(3, snapshot.getChunks());
+    assertEquals(18_000, snapshot.getBytesIn());
+    assertEquals(1.0 / 3, snapshot.getDedupHitRatio(), 1e-9);
+    assertEquals(4_001, snapshot.getBytesStored());
+    assertEquals(4.0, snapshot.getCodecs().get("zstd").getRatio(), 1e-9);
+    assertEquals(2, snapshot.getCodecs().size());
+    assertEquals(1, snapshot.getStages().get("hash").getCount());
+    assertEquals(0, snapshot.getStages().get("dedup-lookup").getCount());
+    assertEquals(Map.of("queue", 7L), snapshot.getGauges());
+  }
+}
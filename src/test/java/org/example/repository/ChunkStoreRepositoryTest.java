@@ -0,0 +1,230 @@
+package org.example.repository;
+
+import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.FileVersion;
+import org.example.model.StoredChunk;
+import org.example.storage.PackChunkStorage;
+import org.example.storage.PackLocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkStoreRepositoryTest {
+
+  private static final ChunkFingerprint X = ChunkFingerprint.of(1L);
+  private static final ChunkFingerprint Y = ChunkFingerprint.of(2L);
+  private static final ChunkFingerprint Z = ChunkFingerprint.of(3L);
+  // small enough for a copy of two 3-byte chunks to start a new segment
+  private static final long SEGMENT_SIZE = 8;
+
+  @TempDir
+  Path tempDir;
+
+  private SingleConnectionDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private PackChunkStorage storage;
+  private ChunkStoreRepository repository;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("test.db"), true);
+    new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    storage = new PackChunkStorage(tempDir.resolve("packs"), SEGMENT_SIZE, false);
+    repository = new ChunkStoreRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource), storage);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    storage.close();
+    dataSource.destroy();
+  }
+
+  @Test
+  void testWriteBatch_CountsReferencesFromEveryFile() {
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "a", 0)));
+    repository.commitManifest("a", 3, 1);
+    repository.writeBatch(List.of(), List.of(reference(X, "b", 0), reference(X, "b", 1)));
+    repository.commitManifest("b", 6, 1);
+
+    assertEquals(3, refCount(X));
+  }
+
+  @Test
+  void testWriteBatch_ReferenceStagedBeforeItsBlobIsCountedWhenTheBlobArrives() {
+    repository.writeBatch(List.of(), List.of(reference(Y, "b", 0)));
+    repository.writeBatch(List.of(blob(Y)), List.of(reference(Y, "a", 0)));
+
+    assertEquals(2, refCount(Y));
+  }
+
+  @Test
+  void testCommitManifest_NewVersionReleasesTheReferencesOfTheOldOne() {
+    repository.writeBatch(List.of(blob(X), blob(Y)), List.of(reference(X, "f", 0), reference(Y, "f", 1)));
+    repository.commitManifest("f", 6, 1);
+    repository.writeBatch(List.of(blob(Z)), List.of(reference(Y, "f", 0), reference(Z, "f", 1)));
+
+    assertEquals(List.of(X, Y), manifest("f"), "the old version stays readable until the commit");
+    repository.commitManifest("f", 6, 2);
+
+    assertEquals(List.of(Y, Z), manifest("f"));
+    assertEquals(0, refCount(X));
+    assertEquals(1, refCount(Y));
+    assertEquals(1, refCount(Z));
+    assertEquals(2, repository.findFileVersion("f").getVersion());
+    assertEquals(0, count("SELECT COUNT(*) FROM file_manifest WHERE staged = 1"));
+  }
+
+  @Test
+  void testForEachFileChunk_FailsOnceTheVersionRestoredIsReplaced() throws Exception {
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 1);
+    FileVersion pinned = repository.findContentVersion("f");
+    repository.writeBatch(List.of(blob(Y)), List.of(reference(Y, "f", 0), reference(Y, "f", 1)));
+    repository.commitManifest("f", 6, 2);
+
+    assertEquals(3, pinned.getSize());
+    assertThrows(IOException.class, () -> repository.forEachFileChunk("f", pinned.getVersion(), 0, 3,
+        (hash, offset, data) -> fail("the new version must not be streamed under the old length")));
+    FileVersion current = repository.findContentVersion("f");
+    List<ChunkFingerprint> streamed = new ArrayList<>();
+    repository.forEachFileChunk("f", current.getVersion(), 0, current.getSize(),
+        (hash, offset, data) -> streamed.add(hash));
+    assertEquals(6, current.getSize());
+    assertEquals(List.of(Y, Y), streamed);
+    assertNull(repository.findContentVersion("g"));
+  }
+
+  @Test
+  void testDiscardStagedManifest_ReleasesTheReferencesOfAnInterruptedIngest() {
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 1);
+    repository.writeBatch(List.of(), List.of(reference(X, "f", 0), reference(X, "f", 1)));
+    assertEquals(3, refCount(X));
+
+    repository.discardStagedManifest("f");
+
+    assertEquals(1, refCount(X));
+    assertEquals(List.of(X), manifest("f"));
+  }
+
+  @Test
+  void testDiscardStagedManifest_LeavesAFileNamedLikeAStagedPathAlone() {
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "staged:f", 0)));
+    repository.commitManifest("staged:f", 3, 1);
+    repository.writeBatch(List.of(), List.of(reference(X, "f", 0)));
+
+    repository.discardStagedManifest("f");
+    List<String> listed = new ArrayList<>();
+    repository.forEachSummary(null, 0, 10, summary -> listed.add(summary.getFilePath()));
+
+    assertEquals(List.of(X), manifest("staged:f"));
+    assertEquals(List.of("staged:f"), listed);
+    assertEquals(1, refCount(X));
+  }
+
+  @Test
+  void testRetireSegment_DeletedDeltaReleasesItsBaseWhichIsDeletedInTurn() {
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "f", 0)));
+    repository.writeBatch(List.of(new StoredChunk(Y, new byte[]{4, 1}, 3, X, 1, null)), List.of(reference(Y, "f", 1)));
+    repository.commitManifest("f", 6, 1);
+    assertEquals(2, refCount(X), "a delta holds a reference on its base");
+
+    repository.writeBatch(List.of(), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 2);
+    assertEquals(0, refCount(Y));
+    assertEquals(2, refCount(X));
+    repository.writeBatch(List.of(), List.of());
+    repository.commitManifest("f", 0, 3);
+    assertEquals(1, refCount(X), "still held by the unreferenced delta");
+
+    List<ChunkFingerprint> deleted = repository.retireSegment(storage.activeSegment(), Map.of());
+
+    assertEquals(Set.of(X, Y), Set.copyOf(deleted));
+    assertEquals(0, count("SELECT COUNT(*) FROM chunk_store"));
+  }
+
+  @Test
+  void testRetireSegment_RelocatesLiveChunksAndDeletesTheOthers() throws Exception {
+    long segment = storage.activeSegment();
+    repository.writeBatch(List.of(blob(X), blob(Y)), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 1);
+    PackLocation moved = storage.append(List.of(new byte[]{0, 1, 2})).get(0);
+    assertNotEquals(segment, moved.getSegment());
+
+    List<ChunkFingerprint> deleted = repository.retireSegment(segment, Map.of(X, moved));
+
+    assertEquals(List.of(Y), deleted);
+    assertEquals(moved.getOffset(), (long) jdbcTemplate.queryForObject(
+        "SELECT segment_offset FROM chunk_store WHERE hash = ?", Long.class, (Object) X.toBytes()));
+    assertArrayEquals(new byte[]{0, 1, 2}, repository.findChunk(X).getData());
+  }
+
+  @Test
+  void testRetireSegment_RollsBackWhenALiveChunkWasNotCopied() {
+    long segment = storage.activeSegment();
+    repository.writeBatch(List.of(blob(X), blob(Y)), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 1);
+
+    assertNull(repository.retireSegment(segment, Map.of()));
+
+    assertEquals(2, count("SELECT COUNT(*) FROM chunk_store"));
+  }
+
+  @Test
+  void testIsReadingRetiredSegments_UntilTheReadsStartedBeforeTheRetirementEnd() throws Exception {
+    long segment = storage.activeSegment();
+    repository.writeBatch(List.of(blob(X)), List.of(reference(X, "f", 0)));
+    repository.commitManifest("f", 3, 1);
+    long next = repository.retiredSegments() + 1;
+
+    repository.forEachFileChunk("f", (hash, data) -> {
+      assertTrue(repository.isReadingRetiredSegments(next), "a running restore may still read the next retired segment");
+      assertFalse(repository.isReadingRetiredSegments(next - 1));
+    });
+    assertFalse(repository.isReadingRetiredSegments(next));
+
+    repository.writeBatch(List.of(), List.of());
+    repository.commitManifest("f", 0, 2);
+    assertNotNull(repository.retireSegment(segment, Map.of()));
+    assertEquals(next, repository.retiredSegments());
+  }
+
+  private static StoredChunk blob(ChunkFingerprint hash) {
+    return new StoredChunk(hash, new byte[]{0, 1, 2}, 3);
+  }
+
+  private static Chunk reference(ChunkFingerprint hash, String filePath, int orderIndex) {
+    return new Chunk(hash, filePath, orderIndex, orderIndex * 3L, 3);
+  }
+
+  private int refCount(ChunkFingerprint hash) {
+    return jdbcTemplate.queryForObject("SELECT ref_count FROM chunk_store WHERE hash = ?", Integer.class,
+        (Object) hash.toBytes());
+  }
+
+  private int count(String sql) {
+    return jdbcTemplate.queryForObject(sql, Integer.class);
+  }
+
+  private List<ChunkFingerprint> manifest(String filePath) {
+    return jdbcTemplate.query("SELECT chunk_hash FROM file_manifest WHERE file_path = ? AND staged = 0 ORDER BY order_index",
+        (resultSet, row) -> new ChunkFingerprint(resultSet.getBytes(1)), filePath);
+  }
+}
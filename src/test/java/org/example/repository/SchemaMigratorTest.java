@@ -0,0 +1,140 @@
+package org.example.repository;
+
+import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.StoredChunk;
+import org.example.storage.PackChunkStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+  private static final ChunkFingerprint ZSTD = ChunkFingerprint.of(1L);
+  private static final ChunkFingerprint RAW = ChunkFingerprint.of(2L);
+  private static final ChunkFingerprint X = ChunkFingerprint.of(42L);
+
+  @TempDir
+  Path tempDir;
+
+  private SingleConnectionDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private SchemaMigrator migrator;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("test.db"), true);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    SqlInitializationProperties properties = new SqlInitializationProperties();
+    properties.setMode(DatabaseInitializationMode.ALWAYS);
+    migrator = new SchemaMigrator(dataSource, properties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.destroy();
+  }
+
+  @Test
+  void testMigrate_AddsTheCodecOfEachChunkFromItsHeader() {
+    createDatabaseWithoutCodec();
+
+    migrator.migrate();
+
+    assertEquals(2, codec(ZSTD));
+    assertEquals(0, codec(RAW));
+  }
+
+  @Test
+  void testMigrate_RebuildsChunkStoreSoThatPackedChunksHaveNoData() {
+    createDatabaseWithoutCodec();
+
+    migrator.migrate();
+
+    jdbcTemplate.update("INSERT INTO chunk_store (hash, segment_id, segment_offset, original_size, compressed_size, codec, "
+        + "ref_count) VALUES (?, 1, 0, 2, 3, 0, 1)", (Object) X.toBytes());
+    assertArrayEquals(new byte[]{2, 'a', 'b', 'c', 'd'}, jdbcTemplate.queryForObject(
+        "SELECT data FROM chunk_store WHERE hash = ?", byte[].class, (Object) ZSTD.toBytes()));
+    assertEquals(2, codec(ZSTD));
+    assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chunk_store", Integer.class));
+  }
+
+  @Test
+  void testInitializeDatabase_LetsAnExistingDatabaseStoreDeltasInPackSegments() throws Exception {
+    createDatabaseWithoutCodec();
+
+    migrator.initializeDatabase();
+
+    PackChunkStorage storage = new PackChunkStorage(tempDir.resolve("packs"), 1024, false);
+    try {
+      ChunkStoreRepository repository = new ChunkStoreRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+          storage);
+      StoredChunk delta = new StoredChunk(X, new byte[]{4, 0, 9}, 4, ZSTD, 1, new long[]{1, 2, 3});
+      repository.writeBatch(List.of(delta), List.of(new Chunk(X, "g", 0, 0, 4)));
+      repository.commitManifest("g", 4, 1);
+
+      assertArrayEquals(new byte[]{4, 0, 9}, repository.findChunk(X).getData());
+      assertArrayEquals(new byte[]{2, 'a', 'b', 'c', 'd'}, repository.findChunk(ZSTD).getData());
+      assertEquals(X, repository.findSimilar(new long[]{1, 2, 3}, 3).getHash());
+      assertEquals(2, jdbcTemplate.queryForObject("SELECT ref_count FROM chunk_store WHERE hash = ?", Integer.class,
+          (Object) ZSTD.toBytes()), "the delta holds a reference on its base");
+    } finally {
+      storage.close();
+    }
+  }
+
+  @Test
+  void testMigrate_FlagsTheManifestsStagedUnderThePathPrefix() {
+    createDatabaseWithoutCodec();
+    jdbcTemplate.update("INSERT INTO file_manifest (file_path, order_index, chunk_hash, chunk_offset, length) "
+        + "VALUES ('staged:f', 0, ?, 0, 2)", (Object) RAW.toBytes());
+
+    migrator.migrate();
+
+    assertEquals(List.of("f:0", "f:0", "f:1"), jdbcTemplate.queryForList(
+        "SELECT file_path || ':' || staged FROM file_manifest ORDER BY staged, id", String.class));
+    assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList("SELECT id FROM file_manifest ORDER BY id", Long.class));
+  }
+
+  @Test
+  void testInitializeDatabase_LeavesAFreshDatabaseAtTheLatestVersion() {
+    migrator.initializeDatabase();
+    int version = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+
+    migrator.initializeDatabase();
+
+    assertTrue(version > 0);
+    assertEquals(version, jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class));
+  }
+
+  /**
+   * chunk_store and file_manifest as created before the codec column, with a Zstd and a raw chunk.
+   */
+  private void createDatabaseWithoutCodec() {
+    jdbcTemplate.execute("CREATE TABLE chunk_store (hash BLOB PRIMARY KEY, data BLOB NOT NULL, "
+        + "original_size INTEGER NOT NULL, compressed_size INTEGER NOT NULL, ref_count INTEGER NOT NULL)");
+    jdbcTemplate.execute("CREATE TABLE file_manifest (id INTEGER PRIMARY KEY AUTOINCREMENT, file_path TEXT NOT NULL, "
+        + "order_index INTEGER NOT NULL, chunk_hash BLOB NOT NULL, chunk_offset INTEGER NOT NULL, "
+        + "length INTEGER NOT NULL, UNIQUE (file_path, order_index))");
+    jdbcTemplate.update("INSERT INTO chunk_store VALUES (?, ?, 4, 5, 1)", ZSTD.toBytes(), new byte[]{2, 'a', 'b', 'c', 'd'});
+    jdbcTemplate.update("INSERT INTO chunk_store VALUES (?, ?, 2, 3, 1)", RAW.toBytes(), new byte[]{0, 'a', 'b'});
+    jdbcTemplate.update("INSERT INTO file_manifest (file_path, order_index, chunk_hash, chunk_offset, length) "
+        + "VALUES ('f', 0, ?, 0, 4), ('f', 1, ?, 4, 2)", ZSTD.toBytes(), RAW.toBytes());
+  }
+
+  private int codec(ChunkFingerprint hash) {
+    return jdbcTemplate.queryForObject("SELECT codec FROM chunk_store WHERE hash = ?", Integer.class,
+        (Object) hash.toBytes());
+  }
+}
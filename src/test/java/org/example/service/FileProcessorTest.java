@@ -1,34 +1,56 @@
 package org.example.service;
 
+import org.example.chunking.ChunkConsumer;
 import org.example.chunking.ChunkerInterface;
-import org.example.chunking.FastCDCChunker;
+import org.example.chunking.MappedFileChunker;
 import org.example.compression.CompressionServiceInterface;
+import org.example.config.IngestProperties;
+import org.example.deduplication.ClaimResult;
+import org.example.deduplication.DuplicateDetector;
 import org.example.deduplication.DuplicateDetectorInterface;
+import org.example.metrics.PipelineMetrics;
 import org.example.model.Chunk;
+import org.example.model.ChunkFingerprint;
+import org.example.model.FileVersion;
+import org.example.model.StoredChunk;
 import org.example.repository.ChunkRepository;
+import org.example.repository.ChunkStoreRepository;
+import org.example.similarity.DeltaBase;
+import org.example.similarity.ResemblanceDetector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class FileProcessorTest {
 
+  private static final ChunkFingerprint FINGERPRINT = ChunkFingerprint.of(123L);
+
   @Mock
   private ChunkerInterface chunker;
 
-  private FastCDCChunker textChunker;
-
   @Mock
   private DuplicateDetectorInterface deduplicator;
 
@@ -38,6 +60,12 @@ class FileProcessorTest {
   @Mock
   private ChunkRepository chunkRepository;
 
+  @Mock
+  private ChunkStoreRepository chunkStoreRepository;
+
+  @Mock
+  private ResemblanceDetector resemblance;
+
   @InjectMocks
   private FileProcessor fileProcessor;
 
@@ -51,8 +79,8 @@ class FileProcessorTest {
   void setUp() throws Exception {
     MockitoAnnotations.openMocks(this);
 
-    textChunker = new FastCDCChunker();
-    fileProcessor = new FileProcessor(chunker, deduplicator, compressor, chunkRepository, textChunker);
+    fileProcessor = new FileProcessor(chunker, deduplicator, compressor, chunkRepository, chunkStoreRepository,
+        new MappedFileChunker(), new IngestPipeline(new IngestProperties()), new PipelineMetrics(), resemblance);
 
     testFile = new File(tempDir, "testfile.bin");
     try (FileOutputStream fos = new FileOutputStream(testFile)) {
@@ -68,35 +96,140 @@ class FileProcessorTest {
   @Test
   void testProcessFile_SuccessfulProcessing() throws Exception {
     when(chunkRepository.existsByFilePath(testFile.getAbsolutePath())).thenReturn(false);
-    when(chunker.chunkData(any())).thenReturn(List.of("chunk1".getBytes(), "chunk2".getBytes()));
-    when(deduplicator.computeXXHash(any())).thenReturn(123L);
-    when(compressor.compress(any())).thenReturn("compressed".getBytes());
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept("chunk1".getBytes());
+      consumer.accept("chunk2".getBytes());
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.CLAIMED, ClaimResult.STORED);
+    when(compressor.compress(any(byte[].class), any())).thenReturn("compressed".getBytes());
+
+    int chunks = fileProcessor.processFile(testFile.getAbsolutePath());
+
+    assertEquals(2, chunks);
+    assertEquals(2, savedChunkCount());
+    verify(chunkStoreRepository).commitManifest(testFile.getAbsolutePath(), 5, testFile.lastModified());
+  }
 
-    ArgumentCaptor<Chunk> chunkCaptor = ArgumentCaptor.forClass(Chunk.class);
-    when(chunkRepository.save(chunkCaptor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+  @Test
+  void testProcessTextFile_ChunksTheFileBytesAsTheyAre() throws Exception {
+    List<byte[]> streamed = new ArrayList<>();
+    doAnswer(invocation -> {
+      byte[] data = invocation.<InputStream>getArgument(0).readAllBytes();
+      streamed.add(data);
+      invocation.<ChunkConsumer>getArgument(2).accept(data);
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.CLAIMED);
+    when(compressor.compress(any(byte[].class), any())).thenReturn("compressed".getBytes());
+
+    int chunks = fileProcessor.processFile(textFile.getAbsolutePath());
+
+    assertEquals(1, chunks);
+    assertArrayEquals(Files.readAllBytes(textFile.toPath()), streamed.get(0), "whitespace is part of the content");
+    verify(chunkStoreRepository).commitManifest(textFile.getAbsolutePath(), textFile.length(), textFile.lastModified());
+  }
+
+  @Test
+  void testProcessFile_VerifyOnMatchRejectsCollision() throws Exception {
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept("chunk1".getBytes());
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.STORED);
+    when(deduplicator.verifiesOnMatch()).thenReturn(true);
+    when(chunkStoreRepository.findChunk(FINGERPRINT)).thenReturn(new StoredChunk(FINGERPRINT, "other!".getBytes(), 6));
+    when(compressor.decompress(any(byte[].class), eq(6))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    assertThrows(Exception.class, () -> fileProcessor.processFile(testFile.getAbsolutePath()));
+    verify(chunkStoreRepository, never()).writeBatch(any(), any());
+  }
 
-    List<Chunk> chunks = fileProcessor.processFile(testFile.getAbsolutePath());
+  @Test
+  void testProcessFile_ChunkerFailureIsRethrownInsteadOfHanging() throws Exception {
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept("chunk1".getBytes());
+      throw new IOException("disque illisible");
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.CLAIMED);
+    when(compressor.compress(any(byte[].class), any())).thenReturn("compressed".getBytes());
 
-    assertNotNull(chunks);
-    assertEquals(2, chunks.size());
-    verify(chunkRepository, times(2)).save(any(Chunk.class));
+    IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> assertThrows(IOException.class, () -> fileProcessor.processFile(testFile.getAbsolutePath())));
+    assertEquals("disque illisible", exception.getMessage());
   }
 
   @Test
-  void testProcessTextFile_SuccessfulProcessing() throws Exception {
-    when(chunkRepository.existsByFilePath(textFile.getAbsolutePath())).thenReturn(false);
+  void testProcessFile_CompressionFailureReleasesEveryClaimOfTheFile() throws Exception {
+    DuplicateDetector detector = new DuplicateDetector();
+    FileProcessor processor = new FileProcessor(chunker, detector, compressor, chunkRepository, chunkStoreRepository,
+        new MappedFileChunker(), new IngestPipeline(new IngestProperties()), new PipelineMetrics(), resemblance);
+    List<byte[]> chunks = IntStream.range(0, 20).mapToObj(i -> ("chunk-" + i).getBytes()).toList();
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      for (byte[] chunk : chunks) {
+        consumer.accept(chunk);
+      }
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(compressor.compress(any(byte[].class), any())).thenAnswer(invocation -> {
+      if (Arrays.equals(invocation.getArgument(0), chunks.get(9))) {
+        throw new IOException("compression impossible");
+      }
+      return "compressed".getBytes();
+    });
 
-    // Générer les chunks directement depuis textChunker
-    List<byte[]> textChunks = textChunker.chunkTextData("Mardi Mercredi Lundi Jeudi Avril");
+    assertThrows(Exception.class, () -> processor.processFile(testFile.getAbsolutePath()));
 
-    when(deduplicator.computeXXHash(any())).thenReturn(123L);
-    when(compressor.compress(any())).thenReturn("compressed".getBytes());
+    verify(chunkStoreRepository, never()).writeBatch(any(), any());
+    for (byte[] chunk : chunks) {
+      assertEquals(ClaimResult.CLAIMED, detector.claim(detector.fingerprint(chunk)),
+          "claim left behind by the failed ingest");
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testProcessFile_ChunkClaimedByAnotherIngestIsStoredHereWhenThatIngestGivesUp() throws Exception {
+    DuplicateDetector detector = new DuplicateDetector();
+    FileProcessor processor = new FileProcessor(chunker, detector, compressor, chunkRepository, chunkStoreRepository,
+        new MappedFileChunker(), new IngestPipeline(new IngestProperties()), new PipelineMetrics(), resemblance);
+    byte[] chunk = "shared".getBytes();
+    ChunkFingerprint fingerprint = detector.fingerprint(chunk);
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept(chunk);
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(compressor.compress(any(byte[].class), any())).thenReturn("compressed".getBytes());
+    assertEquals(ClaimResult.CLAIMED, detector.claim(fingerprint));
 
-    List<Chunk> chunks = fileProcessor.processFile(textFile.getAbsolutePath());
+    CompletableFuture<Integer> ingest = CompletableFuture.supplyAsync(() -> {
+      try {
+        return processor.processFile(testFile.getAbsolutePath());
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+    });
+    verify(chunkStoreRepository, timeout(5000)).writeBatch(eq(List.of()), any());
+    assertFalse(ingest.isDone(), "manifest committed while the chunk was still claimed elsewhere");
+    verify(chunkStoreRepository, never()).commitManifest(any(), anyLong(), anyLong());
+    detector.release(fingerprint);
 
-    assertNotNull(chunks);
-    assertEquals(textChunks.size(), chunks.size());
-    verify(chunkRepository, times(textChunks.size())).save(any(Chunk.class));
+    assertEquals(1, ingest.get(10, TimeUnit.SECONDS));
+    InOrder order = inOrder(chunkStoreRepository);
+    ArgumentCaptor<List<StoredChunk>> blobs = ArgumentCaptor.forClass(List.class);
+    order.verify(chunkStoreRepository).writeBatch(blobs.capture(), eq(List.of()));
+    order.verify(chunkStoreRepository).commitManifest(testFile.getAbsolutePath(), 5, testFile.lastModified());
+    assertEquals(fingerprint, blobs.getValue().get(0).getHash());
+    assertEquals(ClaimResult.STORED, detector.claim(fingerprint));
   }
 
   @Test
@@ -107,13 +240,80 @@ class FileProcessorTest {
 
   @Test
   void testProcessFile_AlreadyProcessedFile() throws Exception {
-    when(chunkRepository.existsByFilePath(testFile.getAbsolutePath())).thenReturn(true);
-    when(chunkRepository.findByFilePath(testFile.getAbsolutePath())).thenReturn(List.of());
+    String path = testFile.getAbsolutePath();
+    when(chunkStoreRepository.findFileVersion(path)).thenReturn(new FileVersion(path, 5, testFile.lastModified(), 1));
+    when(chunkRepository.countByFilePath(path)).thenReturn(3L);
 
-    List<Chunk> chunks = fileProcessor.processFile(testFile.getAbsolutePath());
+    int chunks = fileProcessor.processFile(path);
+
+    assertEquals(3, chunks);
+    verify(chunker, never()).chunkStream(any(), anyLong(), any());
+    verify(chunkStoreRepository, never()).writeBatch(any(), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testProcessFile_ModifiedFileStoresOnlyNewChunksAndCommitsStagedManifest() throws Exception {
+    String path = testFile.getAbsolutePath();
+    when(chunkStoreRepository.findFileVersion(path)).thenReturn(new FileVersion(path, 4, testFile.lastModified(), 1));
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept("kept".getBytes());
+      consumer.accept("edited".getBytes());
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.STORED, ClaimResult.CLAIMED);
+    when(compressor.compress(any(byte[].class), any())).thenReturn("compressed".getBytes());
+
+    int chunks = fileProcessor.processFile(path);
+
+    assertEquals(2, chunks);
+    verify(compressor, times(1)).compress(any(byte[].class), any());
+    ArgumentCaptor<List<StoredChunk>> blobs = ArgumentCaptor.forClass(List.class);
+    ArgumentCaptor<List<Chunk>> references = ArgumentCaptor.forClass(List.class);
+    verify(chunkStoreRepository).writeBatch(blobs.capture(), references.capture());
+    assertEquals(1, blobs.getValue().size());
+    assertEquals(List.of(0L, 4L), references.getValue().stream().map(Chunk::getOffset).toList());
+    InOrder order = inOrder(chunkStoreRepository);
+    order.verify(chunkStoreRepository).discardStagedManifest(path);
+    order.verify(chunkStoreRepository).writeBatch(any(), any());
+    order.verify(chunkStoreRepository).commitManifest(path, 5, testFile.lastModified());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testProcessFile_StoresSimilarChunkAsDeltaAgainstItsBase() throws Exception {
+    ChunkFingerprint base = ChunkFingerprint.of(77L);
+    long[] features = {1, 2, 3};
+    byte[] chunk = new byte[1000];
+    doAnswer(invocation -> {
+      ChunkConsumer consumer = invocation.getArgument(2);
+      consumer.accept(chunk);
+      return null;
+    }).when(chunker).chunkStream(any(), anyLong(), any());
+    when(deduplicator.fingerprint(any(byte[].class))).thenReturn(FINGERPRINT);
+    when(deduplicator.claim(FINGERPRINT)).thenReturn(ClaimResult.CLAIMED);
+    when(resemblance.sketch(any())).thenReturn(features);
+    when(resemblance.findBase(features)).thenReturn(new DeltaBase(base, 1, new byte[1000]));
+    when(resemblance.canBeBase(2)).thenReturn(true);
+    when(compressor.compressDelta(any(), any(), eq(base.toBytes()))).thenReturn(new byte[40]);
+
+    fileProcessor.processFile(testFile.getAbsolutePath());
+
+    verify(compressor, never()).compress(any(byte[].class), any());
+    ArgumentCaptor<List<StoredChunk>> blobs = ArgumentCaptor.forClass(List.class);
+    verify(chunkStoreRepository).writeBatch(blobs.capture(), any());
+    StoredChunk stored = blobs.getValue().get(0);
+    assertEquals(base, stored.getBaseHash());
+    assertEquals(2, stored.getDeltaDepth());
+    assertArrayEquals(features, stored.getSuperFeatures());
+  }
 
-    assertNotNull(chunks);
-    assertTrue(chunks.isEmpty());
-    verify(chunkRepository, never()).save(any());
+  @SuppressWarnings("unchecked")
+  private int savedChunkCount() {
+    ArgumentCaptor<List<Chunk>> batchCaptor = ArgumentCaptor.forClass(List.class);
+    verify(chunkStoreRepository, atLeast(0)).writeBatch(any(), batchCaptor.capture());
+    return batchCaptor.getAllValues().stream().mapToInt(List::size).sum();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package org.example.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuperFeaturesTest {
+
+  @Test
+  void testCompute_LightlyEditedChunkSharesASuperFeatureUnrelatedOneDoesNot() {
+    Random random = new Random(11);
+    byte[] chunk = new byte[8192];
+    random.nextBytes(chunk);
+    byte[] edited = chunk.clone();
+    for (int i = 0; i < 16; i++) {
+      edited[4000 + i] = (byte) random.nextInt();
+    }
+    byte[] unrelated = new byte[8192];
+    random.nextBytes(unrelated);
+
+    long[] original = SuperFeatures.compute(ByteBuffer.wrap(chunk));
+    int shared = 0;
+    for (int i = 0; i < SuperFeatures.COUNT; i++) {
+      shared += original[i] == SuperFeatures.compute(ByteBuffer.wrap(edited))[i] ? 1 : 0;
+      assertNotEquals(original[i], SuperFeatures.compute(ByteBuffer.wrap(unrelated))[i]);
+    }
+
+    assertTrue(shared >= 2, shared + " super-features en commun");
+    assertArrayEquals(original, SuperFeatures.compute(ByteBuffer.wrap(chunk.clone())));
+    assertNull(SuperFeatures.compute(ByteBuffer.allocate(0)));
+  }
+}
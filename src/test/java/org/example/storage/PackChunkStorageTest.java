@@ -0,0 +1,51 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackChunkStorageTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testAppend_RollsOverAndReadsBackAfterReopen() throws Exception {
+    byte[] first = new byte[600];
+    byte[] second = new byte[500];
+    first[599] = 1;
+    second[0] = 2;
+
+    List<PackLocation> locations;
+    long active;
+    PackChunkStorage storage = new PackChunkStorage(tempDir, 1_000, false);
+    try {
+      locations = storage.append(List.of(first));
+      locations = List.of(locations.get(0), storage.append(List.of(second)).get(0));
+      active = storage.activeSegment();
+    } finally {
+      storage.close();
+    }
+
+    assertNotEquals(locations.get(0).getSegment(), locations.get(1).getSegment());
+    assertEquals(0, locations.get(1).getOffset());
+
+    PackChunkStorage reopened = new PackChunkStorage(tempDir, 1_000, false);
+    try {
+      assertEquals(active, reopened.activeSegment());
+      assertArrayEquals(first, reopened.read(locations.get(0).getSegment(), 0, 600));
+      assertArrayEquals(second, reopened.read(locations.get(1).getSegment(), 0, 500));
+      assertEquals(700, reopened.append(List.of(new byte[200], new byte[100])).get(1).getOffset());
+
+      reopened.delete(locations.get(0).getSegment());
+      assertEquals(List.of(active), reopened.segments());
+      assertThrows(IllegalArgumentException.class, () -> reopened.delete(active));
+    } finally {
+      reopened.close();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.example.storage;
+
+import org.example.config.StorageProperties;
+import org.example.deduplication.DuplicateDetectorInterface;
+import org.example.metrics.PipelineMetrics;
+import org.example.model.ChunkFingerprint;
+import org.example.repository.ChunkStoreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PackCompactorTest {
+
+  private static final ChunkFingerprint X = ChunkFingerprint.of(1L);
+  private static final ChunkFingerprint Y = ChunkFingerprint.of(2L);
+
+  @TempDir
+  Path tempDir;
+
+  private PackChunkStorage storage;
+  private ChunkStoreRepository repository;
+  private DuplicateDetectorInterface deduplicator;
+  private PackCompactor compactor;
+  private long sealed;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    storage = new PackChunkStorage(tempDir, 8, false);
+    sealed = storage.activeSegment();
+    // X is live at offset 0, Y is dead at offset 3; the third chunk seals the segment
+    storage.append(List.of(new byte[]{1, 1, 1}, new byte[]{2, 2, 2}));
+    storage.append(List.of(new byte[]{3, 3, 3}));
+
+    repository = mock(ChunkStoreRepository.class);
+    deduplicator = mock(DuplicateDetectorInterface.class);
+    when(repository.segmentUsage()).thenReturn(Map.of(sealed, 3L));
+    doAnswer(invocation -> {
+      ChunkStoreRepository.LiveChunkHandler handler = invocation.getArgument(1);
+      handler.handle(X, 0, 3);
+      return null;
+    }).when(repository).forEachLiveChunk(eq(sealed), any());
+    when(repository.retireSegment(eq(sealed), any())).thenReturn(List.of(Y));
+
+    StorageProperties properties = new StorageProperties();
+    properties.setCompactionLiveRatio(0.6);
+    properties.setCompactionIntervalSeconds(0);
+    compactor = new PackCompactor(storage, repository, deduplicator, properties, new PipelineMetrics());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    compactor.shutdown();
+    storage.close();
+  }
+
+  @Test
+  void testCompact_PostponedPassKeepsItsCopiesForTheNextOne() throws Exception {
+    when(repository.withoutIngest(anyLong(), any(), any()))
+        .thenReturn(null)
+        .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    long active = storage.activeSegment();
+
+    assertEquals(0, compactor.compact());
+    assertEquals(6, storage.size(active));
+    verify(repository, never()).retireSegment(anyLong(), any());
+
+    assertEquals(1, compactor.compact());
+    assertEquals(6, storage.size(active), "the chunk copied by the postponed pass is not copied again");
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<ChunkFingerprint, PackLocation>> relocated = ArgumentCaptor.forClass(Map.class);
+    verify(repository).retireSegment(eq(sealed), relocated.capture());
+    assertEquals(3, relocated.getValue().get(X).getOffset());
+    assertArrayEquals(new byte[]{1, 1, 1}, storage.read(active, 3, 3));
+    verify(deduplicator).forget(Y);
+    verify(repository, times(2)).withoutIngest(anyLong(), any(), any());
+    assertEquals(List.of(active), storage.segments());
+  }
+
+  @Test
+  void testCompact_RetiredSegmentIsKeptWhileAnEarlierReadIsRunning() throws Exception {
+    when(repository.withoutIngest(anyLong(), any(), any()))
+        .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    when(repository.retiredSegments()).thenReturn(1L);
+    when(repository.isReadingRetiredSegments(1L)).thenReturn(true);
+
+    assertEquals(1, compactor.compact());
+    assertTrue(storage.segments().contains(sealed));
+
+    assertEquals(0, compactor.compact(), "a retired segment is not compacted again");
+    assertTrue(storage.segments().contains(sealed));
+    verify(repository).retireSegment(eq(sealed), any());
+
+    when(repository.isReadingRetiredSegments(1L)).thenReturn(false);
+    compactor.compact();
+    assertFalse(storage.segments().contains(sealed));
+  }
+}